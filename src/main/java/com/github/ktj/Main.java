@@ -41,7 +41,9 @@ public final class Main {
 
         int i = 0;
         boolean quit = false;
-        Compiler c = Compiler.NewInstance();
+        //without an output, classes which are executed are only compiled into memory
+        boolean output = false;
+        Compiler c = new Compiler();
 
         if(args[i].equals("-q")) {
             quit = true;
@@ -63,6 +65,7 @@ public final class Main {
             try {
                 c.setOutFolder(args[i + 1]);
                 Decompiler.setOutFolder(args[i + 1]);
+                output = true;
             }catch(Exception e){
                 e.printStackTrace();
             }
@@ -70,6 +73,62 @@ public final class Main {
         }
         if(args.length <= i) return quit;
 
+        if(args[i].equals("-jar") || args[i].equals("-jar0")){
+            if(args.length == i + 1){
+                System.out.println("Expected argument");
+                return quit;
+            }
+            try {
+                c.setJar(args[i + 1], args[i].equals("-jar"));
+                output = true;
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+            i += 2;
+        }
+        if(args.length <= i) return quit;
+
+        if(args[i].equals("-cp")){
+            if(args.length == i + 1){
+                System.out.println("Expected argument");
+                return quit;
+            }
+            try {
+                c.setClassPath(args[i + 1]);
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+            i += 2;
+        }
+        if(args.length <= i) return quit;
+
+        if(args[i].equals("-cache")){
+            if(args.length == i + 1){
+                System.out.println("Expected argument");
+                return quit;
+            }
+            try {
+                c.setCacheFolder(args[i + 1]);
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+            i += 2;
+        }
+        if(args.length <= i) return quit;
+
+        if(args[i].equals("-inc")) {
+            c.setIncremental(true);
+            output = true;
+            i++;
+        }
+        if(args.length <= i) return quit;
+
+        if(args[i].equals("-pipe")) {
+            c.setPipelined(true);
+            i++;
+        }
+        if(args.length <= i) return quit;
+
         ArrayList<String> compile = new ArrayList<>();
 
         if(args[i].equals("-dc")){
@@ -148,6 +207,7 @@ public final class Main {
                 System.err.println("illegal argument(s)");
             } else {
                 try {
+                    if (execute != null && !output) c.setInMemory(true);
                     c.compile(true, compile.toArray(new String[0]));
                     if (execute != null) c.execute(execute);
                 } catch (Exception e) {
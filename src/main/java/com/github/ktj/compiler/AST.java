@@ -16,7 +16,7 @@
 
 package com.github.ktj.compiler;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 abstract class AST {
 
@@ -27,32 +27,12 @@ abstract class AST {
         CalcArg arg = null;
         Calc left = null, right = null;
 
-        public void setLeft(){
-            Calc temp = new Calc();
-            temp.left = left;
-            temp.right = right;
-            temp.op = op;
-            temp.arg = arg;
-            temp.type = type;
-
-            left = temp;
-            right = null;
-            op = null;
-            arg = null;
-        }
-
-        public void setRight(){
-            Calc temp = new Calc();
-            temp.right = right;
-            temp.left = left;
-            temp.op = op;
-            temp.arg = arg;
-            temp.type = type;
-
-            right = temp;
-            left = null;
-            op = null;
-            arg = null;
+        /** @return a new node with the given node as its right operand, which takes the place of the given node */
+        static Calc above(Calc right){
+            Calc calc = new Calc();
+            calc.right = right;
+            calc.type = right.type;
+            return calc;
         }
 
         public boolean isSingleValue(){
@@ -100,25 +80,11 @@ abstract class AST {
         Calc calc = null;
         Calc[] argTypes = null;
 
-        void setPrev(){
-            Call help = prev;
-            prev = new Call();
-            prev.prev = help;
-            prev.name = name;
-            prev.type = type;
-            prev.calc = calc;
-            prev.clazz = clazz;
-            prev.statik = statik;
-            prev.argTypes = argTypes;
-            prev.signature = signature;
-
-            statik = false;
-            clazz = null;
-            name = null;
-            signature = null;
-            argTypes = null;
-            type = null;
-            calc = null;
+        Call(){}
+
+        /** creates the next call of a chain like a.b.c, which is called on the result of prev */
+        Call(Call prev){
+            this.prev = prev;
         }
     }
 
@@ -148,7 +114,7 @@ abstract class AST {
     }
 
     static final class Switch extends AST{
-        HashMap<Token, Integer> values = new HashMap<>();
+        LinkedHashMap<Token, Integer> values = new LinkedHashMap<>();
         AST[][] branches = null;
         AST[] defauld = null;
         Calc calc = null;
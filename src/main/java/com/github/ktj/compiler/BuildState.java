@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import com.github.ktj.lang.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The classes written to an out folder by the last incremental build, with the source they are compiled from and hashes of the source and of their declaration.
+ * It is stored in the out folder, a state written by another compiler, Java runtime or with another classpath is ignored.
+ */
+final class BuildState{
+
+    static final String FILE = ".ktjbuild";
+    private static final String VERSION = "0.9.1";
+
+    static final class Entry{
+
+        final String source, sourceHash, declarationHash;
+
+        Entry(String source, String sourceHash, String declarationHash){
+            this.source = source;
+            this.sourceHash = sourceHash;
+            this.declarationHash = declarationHash;
+        }
+    }
+
+    final String environment;
+    final TreeMap<String, Entry> classes = new TreeMap<>();
+
+    BuildState(String environment){
+        this.environment = environment;
+    }
+
+    /** @return the state stored in the folder or null if there is none for the environment */
+    static BuildState read(File outFolder, String environment){
+        File file = new File(outFolder, FILE);
+        if(!file.isFile()) return null;
+
+        try{
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if(lines.isEmpty() || !lines.get(0).equals(VERSION + "\t" + environment)) return null;
+
+            BuildState state = new BuildState(environment);
+            for(String line:lines.subList(1, lines.size())){
+                String[] entry = line.split("\t");
+                if(entry.length != 4) return null;
+                state.classes.put(entry[0], new Entry(entry[1], entry[2], entry[3]));
+            }
+            return state;
+        }catch(IOException | RuntimeException ignored){
+            return null;
+        }
+    }
+
+    void write(File outFolder){
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add(VERSION + "\t" + environment);
+        for(Map.Entry<String, Entry> entry:classes.entrySet()) lines.add(entry.getKey() + "\t" + entry.getValue().source + "\t" + entry.getValue().sourceHash + "\t" + entry.getValue().declarationHash);
+
+        try{
+            Files.write(new File(outFolder, FILE).toPath(), lines, StandardCharsets.UTF_8);
+        }catch(IOException e){
+            throw new RuntimeException("Failed to write " + FILE + " : " + e.getMessage());
+        }
+    }
+
+    /** @return a hash of everything besides the sources which changes the compiled classes, like the Java runtime and the classpath */
+    static String environment(List<File> classpath){
+        StringBuilder environment = new StringBuilder(System.getProperty("java.version"));
+
+        for(File entry:classpath){
+            environment.append('\n').append(entry.getAbsolutePath());
+
+            if(entry.isDirectory()){
+                try(Stream<Path> walk = Files.walk(entry.toPath())){
+                    walk.filter(Files::isRegularFile).map(Path::toFile).sorted().forEach(file -> environment.append('\n').append(file.getPath()).append(' ').append(file.length()).append(' ').append(file.lastModified()));
+                }catch(IOException e){
+                    throw new RuntimeException("Unable to read " + entry.getPath());
+                }
+            }else environment.append(' ').append(entry.length()).append(' ').append(entry.lastModified());
+        }
+
+        return CompilerUtil.hash(environment.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return a hash of everything other classes can see of the class, the code of its methods excluded */
+    static String declarationHash(Compilable clazz){
+        StringBuilder declaration = new StringBuilder(clazz.getClass().getSimpleName());
+        declare(declaration, clazz);
+
+        if(clazz instanceof KtjClass){
+            declaration.append("\nextends ").append(((KtjClass) clazz).superclass).append(" implements ").append(String.join(",", ((KtjClass) clazz).interfaces));
+            for(String name:new TreeSet<>(((KtjClass) clazz).fields.keySet())) declare(declaration.append("\nfield ").append(name), ((KtjClass) clazz).fields.get(name));
+        }else if(clazz instanceof KtjDataClass){
+            for(String name:((KtjDataClass) clazz).fields.keySet()) declare(declaration.append("\nfield ").append(name), ((KtjDataClass) clazz).fields.get(name));
+        }else if(clazz instanceof KtjTypeClass) declaration.append("\nvalues ").append(String.join(",", ((KtjTypeClass) clazz).values));
+
+        if(clazz instanceof KtjInterface){
+            for(String desc:new TreeSet<>(((KtjInterface) clazz).methods.keySet())) declare(declaration.append("\nmethod ").append(desc), ((KtjInterface) clazz).methods.get(desc));
+        }
+
+        return CompilerUtil.hash(declaration.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void declare(StringBuilder declaration, Compilable c){
+        declaration.append(' ').append(c.getAccessFlag());
+        if(c.genericTypes != null) for(GenericType type:c.genericTypes) declaration.append(' ').append(type.name).append(':').append(type.type);
+
+        if(c instanceof KtjField) declaration.append(' ').append(((KtjField) c).type);
+        else if(c instanceof KtjMethod){
+            declaration.append(' ').append(((KtjMethod) c).returnType);
+            for(KtjMethod.Parameter p:((KtjMethod) c).parameter) declaration.append(' ').append(p.type);
+        }
+    }
+}
@@ -23,7 +23,7 @@ import java.util.Arrays;
 
 final class ClassCompiler {
 
-    static void compileTypeClass(KtjTypeClass clazz, String name, String path){
+    static ClassFile compileTypeClass(KtjTypeClass clazz, String name, String path){
         name = (path.isEmpty() ? name : path + "." + name).replace(".", "/");
         ClassFile cf = new ClassFile(false, name, "java/lang/Enum");
         cf.setMajorVersion(ClassFile.JAVA_8);
@@ -102,10 +102,10 @@ final class ClassCompiler {
         mInfo.setCodeAttribute(code.toCodeAttribute());
         cf.addMethod2(mInfo);
 
-        Compiler.Instance().compiledClasses.add(cf);
+        return cf;
     }
 
-    static void compileDataClass(KtjDataClass clazz, String name, String path){
+    static ClassFile compileDataClass(KtjDataClass clazz, String name, String path){
         name = (path.isEmpty() ? name : path + "." + name).replace(".", "/");
         ClassFile cf = new ClassFile(false, name, "java/lang/Object");
         cf.setMajorVersion(ClassFile.JAVA_8);
@@ -169,10 +169,10 @@ final class ClassCompiler {
 
         cf.addMethod2(mInfo);
 
-        Compiler.Instance().compiledClasses.add(cf);
+        return cf;
     }
 
-    static void compileInterface(KtjInterface clazz, String name, String path){
+    static ClassFile compileInterface(Compiler compiler, KtjInterface clazz, String name, String path){
         name = (path.isEmpty() ? name : path + "." + name).replace(".", "/");
         ClassFile cf = new ClassFile(true, name, "java/lang/Object");
         cf.setMajorVersion(ClassFile.JAVA_8);
@@ -182,16 +182,16 @@ final class ClassCompiler {
 
         //Methods
         for(String desc:clazz.methods.keySet()){
-            MethodInfo mInfo = MethodCompiler.compileMethod(clazz, path.isEmpty() ? name : path+"."+name, cf.getConstPool(), clazz.methods.get(desc), desc);
+            MethodInfo mInfo = MethodCompiler.compileMethod(compiler, clazz, path.isEmpty() ? name : path+"."+name, cf.getConstPool(), clazz.methods.get(desc), desc);
             mInfo.addAttribute(getSignature(clazz.methods.get(desc), false, cf.getConstPool()));
             mInfo.addAttribute(getParameterInfo(clazz.methods.get(desc), cf.getConstPool()));
             cf.addMethod2(mInfo);
         }
 
-        Compiler.Instance().compiledClasses.add(cf);
+        return cf;
     }
 
-    static void compileClass(KtjClass clazz, String name, String path){
+    static ClassFile compileClass(Compiler compiler, KtjClass clazz, String name, String path){
         ClassFile cf = new ClassFile(false, path.isEmpty() ? name : path+"."+name, clazz.superclass);
         cf.setMajorVersion(ClassFile.JAVA_8);
         cf.setAccessFlags(clazz.getAccessFlag());
@@ -213,13 +213,13 @@ final class ClassCompiler {
 
         //Methods
         for(String desc:clazz.methods.keySet()){
-            MethodInfo mInfo = MethodCompiler.compileMethod(clazz, path.isEmpty() ? name : path+"."+name, cf.getConstPool(), clazz.methods.get(desc), desc);
+            MethodInfo mInfo = MethodCompiler.compileMethod(compiler, clazz, path.isEmpty() ? name : path+"."+name, cf.getConstPool(), clazz.methods.get(desc), desc);
             mInfo.addAttribute(getSignature(clazz.methods.get(desc), desc.contains("init>"), cf.getConstPool()));
             mInfo.addAttribute(getParameterInfo(clazz.methods.get(desc), cf.getConstPool()));
             cf.addMethod2(mInfo);
         }
 
-        Compiler.Instance().compiledClasses.add(cf);
+        return cf;
     }
 
     private static SignatureAttribute getSignature(KtjInterface clazz, ConstPool cp){
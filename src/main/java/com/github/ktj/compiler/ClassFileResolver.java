@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Resolves classes by reading their class files with ASM, without loading or initializing them.
+ * Class files are searched in the given classpath first and then in the runtime of the compiler.
+ */
+final class ClassFileResolver implements SymbolResolver{
+
+    private final List<File> classpath;
+    private final HashMap<File, ZipFile> archives = new HashMap<>();
+
+    ClassFileResolver(List<File> classpath){
+        this.classpath = classpath;
+    }
+
+    @Override
+    public ClassSymbol resolve(String name, SymbolCache symbols){
+        byte[] bytes = read(name.replace('.', '/') + ".class");
+        if(bytes == null) return null;
+
+        ClassReader reader = new ClassReader(bytes);
+        if(!reader.getClassName().equals(name.replace('.', '/'))) return null;
+
+        SymbolReader symbol = new SymbolReader();
+        reader.accept(symbol, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return symbol.toSymbol(name, symbols);
+    }
+
+    @Override
+    public synchronized void close(){
+        for(ZipFile archive:archives.values()){
+            try{
+                archive.close();
+            }catch(IOException ignored){}
+        }
+        archives.clear();
+    }
+
+    private byte[] read(String path){
+        try{
+            for(File entry:classpath){
+                if(entry.isDirectory()){
+                    File file = new File(entry, path);
+                    if(file.isFile()) return Files.readAllBytes(file.toPath());
+                }else if(entry.isFile()){
+                    ZipFile archive = archive(entry);
+                    ZipEntry file = archive.getEntry(path);
+                    if(file != null) try(InputStream in = archive.getInputStream(file)){
+                        return readAll(in);
+                    }
+                }
+            }
+
+            try(InputStream in = ClassLoader.getSystemResourceAsStream(path)){
+                return in == null ? null : readAll(in);
+            }
+        }catch(IOException e){
+            throw new RuntimeException("Failed to read "+path+" : "+e.getMessage());
+        }
+    }
+
+    private synchronized ZipFile archive(File file) throws IOException{
+        ZipFile archive = archives.get(file);
+        if(archive == null) archives.put(file, archive = new ZipFile(file));
+        return archive;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for(int read;(read = in.read(buffer)) != -1;) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    /** @return the type name like reflection returns it for parameters, e.g. "[int" for int[] */
+    private static String parameterType(Type type){
+        if(type.getSort() != Type.ARRAY) return type.getClassName();
+
+        StringBuilder result = new StringBuilder(type.getElementType().getClassName());
+        for(int i = 0;i < type.getDimensions();i++) result.insert(0, "[");
+        return result.toString();
+    }
+
+    /** @return the type name like {@link Class#getName()} returns it, e.g. "[I" for int[] */
+    private static String typeName(Type type){
+        return type.getSort() == Type.ARRAY ? type.getDescriptor().replace('/', '.') : type.getClassName();
+    }
+
+    private static final class SymbolReader extends ClassVisitor{
+
+        private int access;
+        private String superclass;
+        private String[] interfaces;
+        private String[] typeParameters = new String[0];
+        private String[][] typeParameterBounds = new String[0][];
+        private final ArrayList<String> enumConstants = new ArrayList<>();
+        private final ArrayList<ClassSymbol.MethodSymbol> methods = new ArrayList<>();
+        private final HashMap<Integer, List<ClassSymbol.MethodSymbol>> constructors = new HashMap<>();
+        private final LinkedHashMap<String, ClassSymbol.FieldSymbol> fields = new LinkedHashMap<>();
+        private String name;
+
+        SymbolReader(){
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces){
+            this.name = name.replace('/', '.');
+            this.access = access & ~Opcodes.ACC_SUPER;
+            this.superclass = (access & Opcodes.ACC_INTERFACE) != 0 || superName == null ? null : superName.replace('/', '.');
+            this.interfaces = new String[interfaces.length];
+            for(int i = 0;i < interfaces.length;i++) this.interfaces[i] = interfaces[i].replace('/', '.');
+
+            if(signature != null){
+                ClassSignature parameters = new ClassSignature();
+                new SignatureReader(signature).accept(parameters);
+                typeParameters = parameters.names.toArray(new String[0]);
+                typeParameterBounds = new String[typeParameters.length][];
+                for(int i = 0;i < typeParameters.length;i++) typeParameterBounds[i] = parameters.bounds(i);
+            }
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access){
+            if(name.replace('/', '.').equals(this.name)) this.access = access | (this.access & Opcodes.ACC_ENUM);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value){
+            if((access & Opcodes.ACC_ENUM) != 0) enumConstants.add(name);
+            if((access & Opcodes.ACC_PUBLIC) != 0) fields.put(name, new ClassSymbol.FieldSymbol(typeName(Type.getType(descriptor)), signature == null ? null : new TypeSignature(signature).variable, access));
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions){
+            if((access & Opcodes.ACC_PUBLIC) == 0 || name.equals("<clinit>")) return null;
+
+            Type[] types = Type.getArgumentTypes(descriptor);
+            String[] parameterTypes = new String[types.length];
+            for(int i = 0;i < types.length;i++) parameterTypes[i] = parameterType(types[i]);
+
+            MethodSignature generic = new MethodSignature();
+            if(signature != null) new SignatureReader(signature).accept(generic);
+
+            if(name.equals("<init>")) constructors.computeIfAbsent(types.length, k -> new ArrayList<>()).add(new ClassSymbol.MethodSymbol(this.name, name, parameterTypes, new String[types.length], "void", null, access));
+            else methods.add(new ClassSymbol.MethodSymbol(this.name, name, parameterTypes, generic.parameterVariables(types.length), typeName(Type.getReturnType(descriptor)), generic.returnType == null ? null : generic.returnType.variable, access));
+            return null;
+        }
+
+        /** merges the declared members with the public members of the supertypes, like {@link Class#getMethods()} and {@link Class#getFields()} */
+        ClassSymbol toSymbol(String name, SymbolCache symbols){
+            LinkedHashMap<String, List<ClassSymbol.MethodSymbol>> methods = new LinkedHashMap<>();
+            for(ClassSymbol.MethodSymbol m:this.methods) methods.computeIfAbsent(m.name+"%"+m.parameterTypes.length, k -> new ArrayList<>()).add(m);
+
+            if(superclass != null){
+                ClassSymbol symbol = symbols.get(superclass);
+                if(symbol != null) inherit(methods, symbol, false);
+            }
+            for(String i:interfaces){
+                ClassSymbol symbol = symbols.get(i);
+                if(symbol != null) inherit(methods, symbol, true);
+            }
+
+            for(String i:interfaces){
+                ClassSymbol symbol = symbols.get(i);
+                if(symbol != null) symbol.fields.forEach(fields::putIfAbsent);
+            }
+            if(superclass != null){
+                ClassSymbol symbol = symbols.get(superclass);
+                if(symbol != null) symbol.fields.forEach(fields::putIfAbsent);
+            }
+
+            boolean isEnum = (access & Opcodes.ACC_ENUM) != 0 && "java.lang.Enum".equals(superclass);
+            return new ClassSymbol(name, access & ~Opcodes.ACC_ENUM, (access & Opcodes.ACC_INTERFACE) != 0, isEnum, superclass, interfaces, typeParameters, typeParameterBounds, isEnum ? enumConstants.toArray(new String[0]) : new String[0], methods, constructors, new HashMap<>(fields));
+        }
+
+        /** adds the methods of the supertype which are not overridden, static methods of interfaces are not inherited */
+        private static void inherit(LinkedHashMap<String, List<ClassSymbol.MethodSymbol>> methods, ClassSymbol supertype, boolean isInterface){
+            for(Map.Entry<String, List<ClassSymbol.MethodSymbol>> entry:supertype.methods.entrySet()){
+                for(ClassSymbol.MethodSymbol m:entry.getValue()){
+                    if(isInterface && (m.modifiers & Opcodes.ACC_STATIC) != 0) continue;
+
+                    List<ClassSymbol.MethodSymbol> declared = methods.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+                    boolean overridden = false;
+                    for(ClassSymbol.MethodSymbol d:declared) if(Arrays.equals(d.parameterTypes, m.parameterTypes)) overridden = true;
+                    if(!overridden) declared.add(m);
+                }
+            }
+        }
+    }
+
+    /** records the names and the outermost bound types of the type parameters of a class */
+    private static final class ClassSignature extends SignatureVisitor{
+
+        private final ArrayList<String> names = new ArrayList<>();
+        private final ArrayList<ArrayList<TypeSignature>> bounds = new ArrayList<>();
+
+        ClassSignature(){
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitFormalTypeParameter(String name){
+            names.add(name);
+            bounds.add(new ArrayList<>());
+        }
+
+        @Override
+        public SignatureVisitor visitClassBound(){
+            return visitInterfaceBound();
+        }
+
+        @Override
+        public SignatureVisitor visitInterfaceBound(){
+            TypeSignature bound = new TypeSignature();
+            bounds.get(bounds.size() - 1).add(bound);
+            return bound;
+        }
+
+        String[] bounds(int parameter){
+            String[] result = new String[bounds.get(parameter).size()];
+            for(int i = 0;i < result.length;i++){
+                TypeSignature bound = bounds.get(parameter).get(i);
+                result[i] = bound.name == null ? bound.variable : bound.name.replace('/', '.');
+            }
+            return result;
+        }
+    }
+
+    /** records the parameter and return types of a method which are type variables */
+    private static final class MethodSignature extends SignatureVisitor{
+
+        private final ArrayList<TypeSignature> parameters = new ArrayList<>();
+        private TypeSignature returnType;
+
+        MethodSignature(){
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public SignatureVisitor visitParameterType(){
+            TypeSignature type = new TypeSignature();
+            parameters.add(type);
+            return type;
+        }
+
+        @Override
+        public SignatureVisitor visitReturnType(){
+            return returnType = new TypeSignature();
+        }
+
+        /** @return the type variable of each parameter or null, if the signature doesn't match the parameter count */
+        String[] parameterVariables(int parameters){
+            String[] result = new String[parameters];
+            if(this.parameters.size() == parameters) for(int i = 0;i < parameters;i++) result[i] = this.parameters.get(i).variable;
+            return result;
+        }
+    }
+
+    /** only the outermost type of a signature is recorded, type arguments and array elements are ignored */
+    private static final class TypeSignature extends SignatureVisitor{
+
+        String variable;
+        String name;
+        private boolean visited;
+
+        TypeSignature(){
+            super(Opcodes.ASM9);
+        }
+
+        TypeSignature(String signature){
+            this();
+            new SignatureReader(signature).acceptType(this);
+        }
+
+        @Override
+        public void visitBaseType(char descriptor){
+            visited = true;
+        }
+
+        @Override
+        public void visitTypeVariable(String name){
+            if(!visited) variable = name;
+            visited = true;
+        }
+
+        @Override
+        public SignatureVisitor visitArrayType(){
+            visited = true;
+            return this;
+        }
+
+        @Override
+        public void visitClassType(String name){
+            if(!visited) this.name = name;
+            visited = true;
+        }
+    }
+}
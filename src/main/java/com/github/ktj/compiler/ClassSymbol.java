@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Everything the compiler needs to know about a class which is not compiled from kataja source.
+ * Type names use the same format as the rest of the compiler, e.g. "[int" for int[].
+ */
+final class ClassSymbol{
+
+    static final class MethodSymbol{
+        /** the name of the class declaring the method */
+        final String owner;
+        final String name;
+        final String[] parameterTypes;
+        /** the parameter types separated by '%', like calls store their signature */
+        final String parameterList;
+        /** the name of the type variable of each parameter or null */
+        final String[] parameterVariables;
+        final String returnType;
+        final String returnVariable;
+        final int modifiers;
+
+        MethodSymbol(String owner, String name, String[] parameterTypes, String[] parameterVariables, String returnType, String returnVariable, int modifiers){
+            this.owner = owner;
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.parameterList = String.join("%", parameterTypes);
+            this.parameterVariables = parameterVariables;
+            this.returnType = returnType;
+            this.returnVariable = returnVariable;
+            this.modifiers = modifiers;
+        }
+    }
+
+    static final class FieldSymbol{
+        final String type;
+        final String variable;
+        final int modifiers;
+
+        FieldSymbol(String type, String variable, int modifiers){
+            this.type = type;
+            this.variable = variable;
+            this.modifiers = modifiers;
+        }
+    }
+
+    final String name;
+    final int modifiers;
+    final boolean isInterface, isEnum;
+    final String superclass;
+    final String[] interfaces;
+    final String[] typeParameters;
+    final String[][] typeParameterBounds;
+    final String[] enumConstants;
+    /** public methods including inherited ones, by name and parameter count */
+    final HashMap<String, List<MethodSymbol>> methods;
+    private final HashMap<Integer, List<MethodSymbol>> constructors;
+    /** public fields including inherited ones */
+    final HashMap<String, FieldSymbol> fields;
+
+    ClassSymbol(String name, int modifiers, boolean isInterface, boolean isEnum, String superclass, String[] interfaces, String[] typeParameters, String[][] typeParameterBounds, String[] enumConstants, HashMap<String, List<MethodSymbol>> methods, HashMap<Integer, List<MethodSymbol>> constructors, HashMap<String, FieldSymbol> fields){
+        this.name = name;
+        this.modifiers = modifiers;
+        this.isInterface = isInterface;
+        this.isEnum = isEnum;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+        this.typeParameters = typeParameters;
+        this.typeParameterBounds = typeParameterBounds;
+        this.enumConstants = enumConstants;
+        this.methods = methods;
+        this.constructors = constructors;
+        this.fields = fields;
+    }
+
+    /** @return the public methods with the given name and parameter count in declaration order */
+    List<MethodSymbol> getMethods(String name, int parameters){
+        return methods.getOrDefault(name+"%"+parameters, Collections.emptyList());
+    }
+
+    List<MethodSymbol> getConstructors(int parameters){
+        return constructors.getOrDefault(parameters, Collections.emptyList());
+    }
+
+    /** @return the public field with the given name, including inherited ones, or null */
+    FieldSymbol getField(String name){
+        return fields.get(name);
+    }
+
+    int typeParameterIndex(String variable){
+        for(int i = 0;i < typeParameters.length;i++) if(typeParameters[i].equals(variable)) return i;
+        return -1;
+    }
+}
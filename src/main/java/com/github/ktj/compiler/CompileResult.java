@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class files of a compilation into memory, or the diagnostics why it failed.
+ */
+public final class CompileResult {
+
+    /** the class files by class name, empty if the compilation failed */
+    public final Map<String, byte[]> classes;
+    public final List<Diagnostic> diagnostics;
+
+    CompileResult(Map<String, byte[]> classes, List<Diagnostic> diagnostics){
+        this.classes = Collections.unmodifiableMap(classes);
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    public boolean success(){
+        return diagnostics.isEmpty();
+    }
+}
@@ -18,13 +18,13 @@ package com.github.ktj.compiler;
 
 import com.github.ktj.bytecode.AccessFlag;
 import com.github.ktj.lang.*;
-import javassist.CannotCompileException;
-import javassist.ClassPool;
-import javassist.NotFoundException;
 import javassist.bytecode.*;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -32,28 +32,81 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipOutputStream;
 
 public final class Compiler {
 
-    private static Compiler COMPILER = null;
-
-    private final Parser parser;
+    /** files are parsed and classes are compiled as independent tasks on this pool */
+    static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    /** the number of classes a pipeline compiles ahead of the writer */
+    private static final int PIPELINE_DEPTH = 2 * POOL.getParallelism();
+    /** marks the end of the classes passed to the writer of a pipeline */
+    private static final CompletableFuture<byte[]> END_OF_PIPELINE = new CompletableFuture<>();
 
     private File outFolder;
-    public HashMap<String, Compilable> classes;
+    /** if set, the compiled classes are written to this jar instead of the out folder */
+    private File jar;
+    private boolean compressJar;
+    /** if enabled, classes are written by a separate thread while the next ones are compiled */
+    private boolean pipelined;
+    /** if enabled, the compiled classes are kept in memory instead of being written */
+    private boolean inMemory;
+    private LinkedHashMap<String, byte[]> memory;
+    /** entries get a fixed time, so that the same classes result in the same jar */
+    private static final long JAR_TIME = LocalDateTime.of(1980, 2, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    private File cacheFolder;
+    private final ArrayList<File> classpath;
+    public final HashMap<String, Compilable> classes;
+    /** the source file of every class */
+    private final HashMap<String, File> origins;
+    SymbolCache symbols;
+    TypeTable types;
+    TypeHierarchy hierarchy;
+    MethodCache resolved;
 
     boolean debug;
+    private boolean incremental;
 
-    ArrayList<ClassFile> compiledClasses;
-
-    private Compiler(){
-        parser = new Parser();
+    /** every compiler has its own classes and symbols, so different compilers can be used at the same time */
+    public Compiler(){
         debug = false;
-        classes = new HashMap<>();
-        setOutFolder("out");
+        classes = new LinkedHashMap<>();
+        origins = new HashMap<>();
+        classpath = new ArrayList<>();
+        symbols = new SymbolCache(new ClassFileResolver(classpath));
+        types = new TypeTable();
+        hierarchy = new TypeHierarchy(this);
+        resolved = new MethodCache(hierarchy);
+        outFolder = new File("out");
     }
 
     public void setOutFolder(String folder) throws RuntimeException{
@@ -70,6 +123,87 @@ public final class Compiler {
         printDebug("out Folder set successfully");
     }
 
+    /** writes the compiled classes to the given jar instead of the out folder, stored uncompressed if compress is false, null writes to the out folder again */
+    public void setJar(String file, boolean compress) throws RuntimeException{
+        if(file == null){
+            jar = null;
+            return;
+        }
+
+        File jar = new File(file).getAbsoluteFile();
+
+        if(jar.isDirectory()) throw new IllegalArgumentException("Expected jar file, got folder");
+        if(!jar.getParentFile().exists() && !jar.getParentFile().mkdirs()) throw new RuntimeException("Failed to create Folder for "+file);
+
+        this.jar = jar;
+        compressJar = compress;
+
+        printDebug("jar set successfully");
+    }
+
+    /** sets the jar files and folders, separated by the path separator of the system, which are searched for used classes */
+    public void setClassPath(String classpath){
+        this.classpath.clear();
+
+        for(String entry:classpath.split(File.pathSeparator)){
+            if(entry.isEmpty()) continue;
+
+            File file = new File(entry);
+            if(!file.exists()) throw new IllegalArgumentException("Unable to find "+file.getAbsolutePath());
+            this.classpath.add(file);
+        }
+
+        printDebug("classpath set successfully");
+    }
+
+    /** sets the folder in which the parsed source files are cached, null disables the cache */
+    public void setCacheFolder(String folder) throws RuntimeException{
+        if(folder == null){
+            cacheFolder = null;
+            return;
+        }
+
+        File cache = new File(folder);
+
+        if(cache.exists()) {
+            if (!cache.isDirectory()) throw new IllegalArgumentException("Expected folder, got "+getExtension(cache.getName())+" file");
+        }else{
+            if(!cache.mkdirs()) throw new RuntimeException("Failed to create cache Folder");
+        }
+
+        cacheFolder = cache;
+
+        printDebug("cache Folder set successfully");
+    }
+
+    /**
+     * if enabled, only classes which are changed or depend on changed declarations are compiled again and the out folder is not cleared,
+     * it is ignored if the classes are written to a jar or kept in memory
+     */
+    public void setIncremental(boolean incremental){
+        this.incremental = incremental;
+
+        printDebug("incremental set successfully");
+    }
+
+    /**
+     * if enabled, compiled classes are passed through a bounded queue to a writer thread while compiling continues,
+     * and the method bodies of a class are released once it is compiled, so that they can not be compiled or checked again.
+     * the out folder is cleared before compiling, so a failed compilation leaves the classes written until then
+     */
+    public void setPipelined(boolean pipelined){
+        this.pipelined = pipelined;
+
+        printDebug("pipelined set successfully");
+    }
+
+    /** if enabled, nothing is written, the compiled classes are kept in memory and executed from there */
+    public void setInMemory(boolean inMemory){
+        this.inMemory = inMemory;
+
+        printDebug("in memory set successfully");
+    }
+
     public void setDebug(boolean debug){
         this.debug = debug;
 
@@ -78,24 +212,28 @@ public final class Compiler {
 
     public void execute(String path){
         System.out.println();
-        String main = null;
 
         if(path.endsWith(".ktj")) path = path.substring(0, path.length() - 4);
         path = path.replace("/", ".").replace("\\", ".");
 
-        for(String clazzName:classes.keySet()){
-            if(clazzName.startsWith(path)&& classes.get(clazzName) instanceof KtjClass && ((KtjClass)(classes.get(clazzName))).methods.containsKey("main%[java.lang.String") && ((KtjClass)(classes.get(clazzName))).methods.get("main%[java.lang.String").modifier.statik && ((KtjClass)(classes.get(clazzName))).methods.get("main%[java.lang.String").modifier.accessFlag == AccessFlag.ACC_PUBLIC){
-                if(main != null) throw new RuntimeException("main is defined multiple times");
-                main = clazzName;
-            }
-        }
+        ArrayList<String> mains = mainClasses(path);
+        if(mains.size() > 1) throw new RuntimeException("main is defined multiple times");
+        String main = mains.isEmpty() ? null : mains.get(0);
 
         if(main == null) throw new RuntimeException("main is not defined");
         else{
             printDebug(">--------------------<");
 
             try{
-                URLClassLoader.newInstance(new URL[]{outFolder.getAbsoluteFile().toURI().toURL()}).loadClass(main).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+                int offset = memory == null ? 1 : 0;
+                URL[] urls = new URL[classpath.size() + offset];
+                if(memory == null) urls[0] = (jar != null ? jar : outFolder).getAbsoluteFile().toURI().toURL();
+                for(int i = 0;i < classpath.size();i++) urls[i + offset] = classpath.get(i).getAbsoluteFile().toURI().toURL();
+
+                ClassLoader loader = URLClassLoader.newInstance(urls);
+                if(memory != null) loader = new MemoryClassLoader(memory, loader);
+
+                loader.loadClass(main).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
             }catch(InvocationTargetException e){
                 e.getTargetException().printStackTrace();
             }catch(ClassNotFoundException |  NoSuchMethodException | SecurityException | IllegalAccessException | MalformedURLException e){
@@ -108,54 +246,206 @@ public final class Compiler {
         }
     }
 
-    public void compile(boolean clearOutFolder, String... files) throws IllegalArgumentException{
-        long time = System.nanoTime();
+    /**
+     * parses the files and validates the declarations of all classes, without parsing or compiling method bodies
+     * @return the declared classes by their name
+     */
+    public HashMap<String, Compilable> declarations(String... files) throws IllegalArgumentException{
+        LinkedHashMap<File, String> sources = collectSources(files);
+        ParseCache cache = cacheFolder == null ? null : new ParseCache(cacheFolder);
 
-        compiledClasses = new ArrayList<>();
+        LinkedHashMap<File, Supplier<HashMap<String, Compilable>>> parsers = new LinkedHashMap<>();
+        for(File source:sources.keySet()) parsers.put(source, () -> cache == null ? new Parser().parseFile(source, sources.get(source)) : cache.parseFile(source, sources.get(source)));
 
-        for(String file:files) {
-            File f = new File(file);
+        return declarations(parsers);
+    }
 
-            if (!f.exists()) throw new IllegalArgumentException("Unable not find " + f.getAbsolutePath());
+    /**
+     * like {@link #declarations(String...)}, but the sources are not read from disk
+     * @param sources the content of every source file by its path relative to the source root, like p/A.ktj
+     */
+    public HashMap<String, Compilable> declarations(Map<String, String> sources) throws IllegalArgumentException{
+        LinkedHashMap<File, Supplier<HashMap<String, Compilable>>> parsers = new LinkedHashMap<>();
 
-            if (f.isDirectory()) {
-                for (File folderEntry : f.listFiles()) {
-                    if (!folderEntry.isDirectory() && getExtension(folderEntry.getName()).equals("ktj"))
-                        classes.putAll(parser.parseFile(folderEntry, file));
-                }
-            } else if (getExtension(f.getName()).equals("ktj")) {
-                classes.putAll(parser.parseFile(f, file));
-            } else
-                throw new IllegalArgumentException("Expected kataja (.ktj) File, got ." + getExtension(f.getName()) + " file");
+        for(String file:new TreeMap<>(sources).keySet()){
+            if(!getExtension(file).equals("ktj")) throw new IllegalArgumentException("Expected kataja (.ktj) File, got ." + getExtension(file) + " file");
+
+            String path = file.replace("\\", "/");
+            parsers.put(new File(path), () -> new Parser().parseSource(path, sources.get(file)));
         }
 
-        for(String name:classes.keySet()){
-            try {
-                classes.get(name).validateUses(name);
-                classes.get(name).validateTypes();
-
-                if(classes.get(name) instanceof KtjClass){
-                    ((KtjClass) classes.get(name)).validateInterfaces();
-                    ((KtjClass) classes.get(name)).validateInit(name);
-                    ((KtjClass) classes.get(name)).validateClinit(name);
+        return declarations(parsers);
+    }
+
+    private HashMap<String, Compilable> declarations(LinkedHashMap<File, Supplier<HashMap<String, Compilable>>> sources){
+        symbols = new SymbolCache(new ClassFileResolver(classpath));
+        types = new TypeTable();
+        hierarchy = new TypeHierarchy(this);
+        resolved = new MethodCache(hierarchy);
+        classes.clear();
+        origins.clear();
+
+        try{
+            ArrayList<CompletableFuture<HashMap<String, Compilable>>> parsed = new ArrayList<>();
+            for(File source:sources.keySet()) parsed.add(CompletableFuture.supplyAsync(sources.get(source), POOL));
+            int i = 0;
+            for(File source:sources.keySet()){
+                HashMap<String, Compilable> result = join(parsed.get(i++));
+                validateNames(result);
+                classes.putAll(result);
+                for(String name:result.keySet()) origins.put(name, source);
+            }
+
+            printDebug(sources.size()+" files parsed successfully");
+
+            for(String name:classes.keySet()){
+                try {
+                    classes.get(name).validateUses(this, name);
+                    classes.get(name).validateTypes(this);
+
+                    if(classes.get(name) instanceof KtjClass){
+                        ((KtjClass) classes.get(name)).validateInterfaces(this);
+                        ((KtjClass) classes.get(name)).validateInit(name);
+                        ((KtjClass) classes.get(name)).validateClinit(name);
+                    }
+                }catch(RuntimeException e){
+                    throw new ParsingException(e.getMessage(), classes.get(name).file, classes.get(name).line);
                 }
-            }catch(RuntimeException e){
-                throw new ParsingException(e.getMessage(), name, classes.get(name).line);
             }
+
+            hierarchy.seal();
+        }catch(ParsingException e){
+            e.debug = debug;
+            throw e;
+        }finally{
+            symbols.close();
         }
 
-        for(String name:classes.keySet()) compileClass(name);
+        return classes;
+    }
 
-        printDebug("parsing finished successfully");
+    /**
+     * data classes, type classes and interfaces can't have the name of a class which is already known,
+     * checked while merging the files in order, so that a duplicate is reported the same way whatever the order the files were parsed in
+     */
+    private void validateNames(HashMap<String, Compilable> parsed){
+        for(String name:parsed.keySet()){
+            Compilable clazz = parsed.get(name);
+            String simpleName = name.substring(name.lastIndexOf('.') + 1);
+
+            if(!(clazz instanceof KtjClass) && CompilerUtil.classExist(this, simpleName)) throw new ParsingException("Type Class "+simpleName+" is already defined", clazz.file, clazz.line);
+        }
+    }
 
-        if(clearOutFolder){
-            clearFolder(outFolder);
-            printDebug("out folder cleared successfully");
+    /** parses and analyses the method bodies of the given class, which has to be declared before, without generating bytecode */
+    public void check(String name) throws IllegalArgumentException{
+        Compilable clazz = classes.get(name);
+        if(clazz == null) throw new IllegalArgumentException("Unable to find class "+name);
+        if(!(clazz instanceof KtjInterface)) return;
+
+        try{
+            for(String desc:((KtjInterface) clazz).methods.keySet()) MethodCompiler.checkMethod(this, (KtjInterface) clazz, name, ((KtjInterface) clazz).methods.get(desc), desc);
+        }catch(ParsingException e){
+            e.debug = debug;
+            throw e;
+        }finally{
+            symbols.close();
         }
 
-        validateOutFolder();
+        printDebug(name+" checked successfully");
+    }
+
+    public void compile(boolean clearOutFolder, String... files) throws IllegalArgumentException{
+        try{
+            compileFiles(clearOutFolder, files);
+        }catch(ParsingException e){
+            e.debug = debug;
+            throw e;
+        }
+    }
+
+    /**
+     * compiles the files or folders into memory, nothing is written and the compiled classes can be executed afterwards
+     * @return the class files by class name, or the diagnostics if the compilation failed
+     */
+    public CompileResult build(String... files){
+        return build(() -> declarations(files));
+    }
+
+    /**
+     * compiles the sources into memory, nothing is read from or written to disk
+     * @param sources the content of every source file by its path relative to the source root, like p/A.ktj
+     * @return the class files by class name, or the diagnostics if the compilation failed
+     */
+    public CompileResult build(Map<String, String> sources){
+        return build(() -> declarations(sources));
+    }
 
-        for(ClassFile clazz:compiledClasses) writeFile(clazz);
+    private CompileResult build(Runnable declare){
+        memory = null;
+
+        try{
+            declare.run();
+
+            ArrayList<String> names = new ArrayList<>(classes.keySet());
+            names.sort(null);
+            memory = compileClasses(names);
+
+            return new CompileResult(memory, Collections.emptyList());
+        }catch(RuntimeException e){
+            return new CompileResult(new LinkedHashMap<>(), Collections.singletonList(Diagnostic.of(e)));
+        }
+    }
+
+    private void compileFiles(boolean clearOutFolder, String... files) throws IllegalArgumentException{
+        long time = System.nanoTime();
+
+        declarations(files);
+
+        BuildState state = incremental && jar == null && !inMemory ? buildState() : null;
+        BuildState previous = state != null ? BuildState.read(outFolder, state.environment) : null;
+        Set<String> outdated = previous == null ? classes.keySet() : outdated(previous, state);
+
+        ArrayList<String> names = new ArrayList<>(outdated);
+        names.sort(null);
+
+        //in a pipeline the classes are written while they are compiled, otherwise all of them are compiled before anything is written
+        LinkedHashMap<String, byte[]> compiledClasses = pipelined && !inMemory ? null : compileClasses(names);
+        memory = inMemory ? compiledClasses : null;
+
+        if(inMemory){
+            printDebug(compiledClasses.size()+" classes kept in memory");
+        }else if(jar != null){
+            int written = writeJar(names, compiledClasses);
+            printDebug(written+" classes written to "+jar.getPath());
+        }else{
+            if(clearOutFolder && previous == null){
+                HashSet<File> keep = new HashSet<>();
+                for(String name:names) keep.add(classFile(name));
+
+                clearFolder(outFolder, keep);
+                printDebug("out folder cleared successfully");
+            }
+
+            validateOutFolder();
+
+            if(previous != null){
+                for(String name:previous.classes.keySet()){
+                    if(!classes.containsKey(name) && classFile(name).exists() && !classFile(name).delete()) throw new RuntimeException("Failed to delete "+classFile(name).getPath());
+                }
+                printDebug(outdated.size()+" of "+classes.size()+" classes compiled again");
+            }
+
+            int written = emit(names, compiledClasses, this::writeFile);
+            printDebug(written+" of "+names.size()+" class files changed");
+
+            File stateFile = new File(outFolder, BuildState.FILE);
+            if(state != null) state.write(outFolder);
+            else if(stateFile.exists() && !stateFile.delete()) throw new RuntimeException("Failed to delete "+stateFile.getPath());
+        }
+
+        printDebug("parsing finished successfully");
+        printDebug(symbols.toString());
 
         if(debug){
             System.out.print("\nCompiling finished successfully in");
@@ -188,14 +478,111 @@ public final class Compiler {
         }else printDebug("compiling finished successfully");
     }
 
+    private LinkedHashMap<File, String> collectSources(String... files) throws IllegalArgumentException{
+        LinkedHashMap<File, String> sources = new LinkedHashMap<>();
+
+        for(String file:files) {
+            File f = new File(file);
+
+            if (!f.exists()) throw new IllegalArgumentException("Unable not find " + f.getAbsolutePath());
+
+            if (f.isDirectory()) {
+                try(Stream<Path> walk = Files.walk(f.toPath())){
+                    walk.filter(Files::isRegularFile).map(Path::toFile).filter(entry -> getExtension(entry.getName()).equals("ktj")).sorted().forEach(entry -> sources.putIfAbsent(entry, file));
+                }catch(IOException e){
+                    throw new IllegalArgumentException("Unable to read " + f.getPath());
+                }
+            } else if (getExtension(f.getName()).equals("ktj")) {
+                sources.putIfAbsent(f, file);
+            } else
+                throw new IllegalArgumentException("Expected kataja (.ktj) File, got ." + getExtension(f.getName()) + " file");
+        }
+
+        return sources;
+    }
+
+    private BuildState buildState(){
+        BuildState state = new BuildState(BuildState.environment(classpath));
+        HashMap<File, String> hashes = new HashMap<>();
+
+        for(String name:classes.keySet()){
+            File source = origins.get(name);
+            String hash = hashes.get(source);
+
+            if(hash == null){
+                try{
+                    hashes.put(source, hash = CompilerUtil.hash(Files.readAllBytes(source.toPath())));
+                }catch(IOException e){
+                    throw new IllegalArgumentException("Unable to read " + source.getPath());
+                }
+            }
+
+            state.classes.put(name, new BuildState.Entry(source.getAbsolutePath(), hash, BuildState.declarationHash(classes.get(name))));
+        }
+
+        return state;
+    }
+
+    /** @return the classes whose source changed, whose class file is missing or which can refer to a class whose declaration changed */
+    private Set<String> outdated(BuildState previous, BuildState state){
+        HashSet<String> outdated = new HashSet<>();
+        HashSet<String> changed = new HashSet<>();
+
+        for(String name:state.classes.keySet()){
+            BuildState.Entry entry = state.classes.get(name), before = previous.classes.get(name);
+
+            if(before == null || !before.declarationHash.equals(entry.declarationHash)) changed.add(name);
+            if(before == null || !before.source.equals(entry.source) || !before.sourceHash.equals(entry.sourceHash) || !classFile(name).isFile()) outdated.add(name);
+        }
+        for(String name:previous.classes.keySet()) if(!classes.containsKey(name)) changed.add(name);
+
+        // classes refer to others only by their uses, but can reach the declarations of further classes through the types of fields and methods
+        HashMap<String, ArrayList<String>> dependents = new HashMap<>();
+        for(String name:classes.keySet()){
+            for(String used:classes.get(name).uses.values()){
+                if(!used.equals(name)) dependents.computeIfAbsent(used, key -> new ArrayList<>()).add(name);
+            }
+        }
+
+        ArrayDeque<String> queue = new ArrayDeque<>(changed);
+        while(!queue.isEmpty()){
+            for(String dependent:dependents.getOrDefault(queue.poll(), new ArrayList<>())) if(changed.add(dependent)) queue.add(dependent);
+        }
+
+        for(String name:changed) if(classes.containsKey(name)) outdated.add(name);
+        return outdated;
+    }
+
+    private File classFile(String name){
+        return new File(outFolder, name.replace(".", "/") + ".class");
+    }
+
+    /** waits for the result and rethrows failures like they were thrown by the calling thread */
+    static <T> T join(CompletableFuture<T> future){
+        try{
+            return future.join();
+        }catch(CompletionException e){
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
     String getExtension(String filename) {
         return filename.substring(filename.lastIndexOf(".") + 1);
     }
 
-    private void clearFolder(File folder){
+    /** deletes everything in the folder except the files to keep and the folders containing them */
+    private void clearFolder(File folder, Set<File> keep){
         if(folder.exists() && folder.isDirectory() && folder.listFiles() != null){
             for(File file:folder.listFiles()){
-                if(file.isDirectory()) clearFolder(file);
+                if(keep.contains(file)) continue;
+
+                if(file.isDirectory()){
+                    clearFolder(file, keep);
+                    if(file.list() != null && file.list().length > 0) continue;
+                }
+
                 if(!file.delete()) throw new RuntimeException("Failed to delete "+file.getPath());
             }
         }
@@ -212,48 +599,244 @@ public final class Compiler {
         if(debug) System.out.println(message);
     }
 
-    private void writeFile(ClassFile cf){
+    private LinkedHashMap<String, byte[]> compileClasses(ArrayList<String> names){
+        LinkedHashMap<String, byte[]> compiledClasses = new LinkedHashMap<>();
+
         try{
-            //ClassPool.getDefault().makeClass(cf).writeFile(outFolder.getPath());
-            byte[] classBytecode = ClassPool.getDefault().makeClass(cf).toBytecode();
+            LinkedHashMap<String, CompletableFuture<byte[]>> compiled = new LinkedHashMap<>();
+            for(String name:names) compiled.put(name, CompletableFuture.supplyAsync(() -> toBytecode(compileClass(name)), POOL));
+
+            for(String name:compiled.keySet()){
+                byte[] bytecode = join(compiled.get(name));
+                if(bytecode != null) compiledClasses.put(name, bytecode);
+            }
+        }finally{
+            symbols.close();
+        }
+
+        return compiledClasses;
+    }
 
-            ClassReader reader = new ClassReader(classBytecode);
-            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    /**
+     * hands the classes to the sink in the order of the names, if they are not compiled yet they are compiled in a pipeline
+     * @return the number of classes the sink has written
+     */
+    private int emit(ArrayList<String> names, LinkedHashMap<String, byte[]> compiledClasses, ClassSink sink){
+        int written = 0;
 
-            reader.accept(writer, ClassReader.EXPAND_FRAMES);
+        if(compiledClasses != null){
+            for(String name:names) if(compiledClasses.containsKey(name) && write(sink, name, compiledClasses.get(name))) written++;
+            return written;
+        }
 
-            File file = new File(outFolder + "/" + cf.getName().replace(".", "/") + ".class");
-            if(file.getParentFile() != null && !file.getParentFile().exists())
-                file.getParentFile().mkdirs();
+        //bounds the classes which are compiled but not written yet, at most one more is held by the writer
+        ArrayBlockingQueue<CompletableFuture<byte[]>> queue = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        ArrayList<CompletableFuture<byte[]>> submitted = new ArrayList<>();
+        //set once the build failed, classes which did not start compiling yet are skipped then
+        AtomicBoolean failed = new AtomicBoolean();
+
+        CompletableFuture<Integer> writer = CompletableFuture.supplyAsync(() -> {
+            int count = 0;
+            Throwable failure = null;
+
+            //after a failure the remaining futures are still taken, so that submitting never blocks
+            for(int i = 0;;i++){
+                CompletableFuture<byte[]> next;
+                try{
+                    next = queue.take();
+                }catch(InterruptedException e){
+                    throw new RuntimeException("Interrupted while writing classes");
+                }
+                if(next == END_OF_PIPELINE) break;
+                if(failure != null) continue;
+
+                try{
+                    byte[] bytecode = join(next);
+                    if(bytecode != null && write(sink, names.get(i), bytecode)) count++;
+                }catch(RuntimeException | Error e){
+                    failure = e;
+                    failed.set(true);
+                }
+            }
 
-            try (FileOutputStream fos = new FileOutputStream(file)){
-                fos.write(writer.toByteArray());
-            }catch(IOException e){
-                throw new RuntimeException("Failed to write ClassFile for " + cf.getName() + (debug ? " : " + e.getMessage() : ""));
+            if(failure instanceof Error) throw (Error) failure;
+            if(failure != null) throw (RuntimeException) failure;
+            return count;
+        }, task -> {
+            Thread thread = new Thread(task, "ktj-writer");
+            thread.setDaemon(true);
+            thread.start();
+        });
+
+        boolean ended = false;
+        try{
+            for(String name:names){
+                //once the writer failed the build fails anyway, so the remaining classes are not compiled
+                if(failed.get()) break;
+
+                CompletableFuture<byte[]> compiled = CompletableFuture.supplyAsync(() -> {
+                    if(failed.get()) return null;
+
+                    byte[] bytecode = toBytecode(compileClass(name));
+                    classes.get(name).releaseCode();
+                    return bytecode;
+                }, POOL);
+                submitted.add(compiled);
+                queue.put(compiled);
+            }
+            queue.put(END_OF_PIPELINE);
+            ended = true;
+
+            return join(writer);
+        }catch(InterruptedException e){
+            throw new RuntimeException("Interrupted while compiling classes");
+        }finally{
+            if(!ended){
+                //the queued classes are dropped, so that there is room for the marker which stops the writer
+                failed.set(true);
+                queue.clear();
+                queue.offer(END_OF_PIPELINE);
             }
-        }catch(IOException | CannotCompileException e){
+
+            //classes which are still compiling read the symbols, so they are closed after everything finished
+            CompletableFuture.allOf(submitted.toArray(new CompletableFuture[0])).handle((result, e) -> null).join();
+            writer.handle((count, e) -> null).join();
+            symbols.close();
+        }
+    }
+
+    private boolean write(ClassSink sink, String name, byte[] bytecode){
+        try{
+            return sink.write(name, bytecode);
+        }catch(IOException e){
+            throw new RuntimeException("Failed to write " + name + (debug ? " : " + e.getMessage() : ""));
+        }
+    }
+
+    /** receives the compiled classes in order */
+    private interface ClassSink{
+        /** @return false if the class did not need to be written */
+        boolean write(String name, byte[] bytecode) throws IOException;
+    }
+
+    /** writes the class file without registering it in a ClassPool and lets ASM compute the stack map frames */
+    private byte[] toBytecode(ClassFile cf){
+        if(cf == null) return null;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            cf.write(out);
+        }catch(IOException e){
             throw new RuntimeException("Failed to write ClassFile for " + cf.getName() + (debug ? " : " + e.getMessage() : ""));
         }
+
+        ClassReader reader = new ClassReader(bytes.toByteArray());
+        ClassWriter writer = new FrameWriter(hierarchy);
+
+        reader.accept(writer, ClassReader.EXPAND_FRAMES);
+
+        return writer.toByteArray();
+    }
+
+    /** @return false if the class file already has the same content, in which case it is not touched */
+    private boolean writeFile(String name, byte[] bytecode){
+        File file = classFile(name);
+        if(file.getParentFile() != null && !file.getParentFile().exists())
+            file.getParentFile().mkdirs();
+
+        try{
+            if(file.isFile() && file.length() == bytecode.length && Arrays.equals(Files.readAllBytes(file.toPath()), bytecode)) return false;
+        }catch(IOException ignored){}
+
+        try (FileOutputStream fos = new FileOutputStream(file)){
+            fos.write(bytecode);
+            return true;
+        }catch(IOException e){
+            throw new RuntimeException("Failed to write ClassFile for " + name + (debug ? " : " + e.getMessage() : ""));
+        }
     }
 
-    private void compileClass(String name){
+    /** streams the classes sorted by name into the jar, with a manifest naming the main class if exactly one is defined */
+    private int writeJar(ArrayList<String> names, LinkedHashMap<String, byte[]> compiledClasses){
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(new Attributes.Name("Created-By"), "Kataja Compiler");
+
+        ArrayList<String> mains = mainClasses("");
+        if(mains.size() == 1) manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mains.get(0));
+
+        File temp = new File(jar.getParentFile(), jar.getName()+".tmp");
+
+        int written;
+
+        try{
+            try(JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))){
+                out.setMethod(compressJar ? ZipOutputStream.DEFLATED : ZipOutputStream.STORED);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                manifest.write(bytes);
+                writeJarEntry(out, "META-INF/", new byte[0]);
+                writeJarEntry(out, JarFile.MANIFEST_NAME, bytes.toByteArray());
+
+                written = emit(names, compiledClasses, (name, bytecode) -> {
+                    writeJarEntry(out, name.replace(".", "/")+".class", bytecode);
+                    return true;
+                });
+            }
+
+            Files.move(temp.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }catch(IOException e){
+            temp.delete();
+            throw new RuntimeException("Failed to write " + jar.getPath() + (debug ? " : " + e.getMessage() : ""));
+        }catch(RuntimeException | Error e){
+            temp.delete();
+            throw e;
+        }
+
+        return written;
+    }
+
+    private void writeJarEntry(JarOutputStream out, String name, byte[] content) throws IOException{
+        JarEntry entry = new JarEntry(name);
+        entry.setTime(JAR_TIME);
+
+        if(!compressJar){
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    /** @return the classes starting with the prefix, which define a public static main method */
+    private ArrayList<String> mainClasses(String prefix){
+        ArrayList<String> mains = new ArrayList<>();
+
+        for(String clazzName:classes.keySet()){
+            if(clazzName.startsWith(prefix)&& classes.get(clazzName) instanceof KtjClass && ((KtjClass)(classes.get(clazzName))).methods.containsKey("main%[java.lang.String") && ((KtjClass)(classes.get(clazzName))).methods.get("main%[java.lang.String").modifier.statik && ((KtjClass)(classes.get(clazzName))).methods.get("main%[java.lang.String").modifier.accessFlag == AccessFlag.ACC_PUBLIC)
+                mains.add(clazzName);
+        }
+
+        return mains;
+    }
+
+    private ClassFile compileClass(String name){
         Compilable clazz = classes.get(name);
 
         String path = name;
         name = path.substring(path.lastIndexOf(".") + 1);
         path = path.length() - name.length() - 1 > 0 ? path.substring(0, path.length() - name.length() - 1) : "";
 
-        if(clazz instanceof KtjTypeClass) ClassCompiler.compileTypeClass((KtjTypeClass) clazz, name, path);
-        else if(clazz instanceof KtjDataClass) ClassCompiler.compileDataClass((KtjDataClass) clazz, name, path);
-        else if(clazz instanceof KtjClass) ClassCompiler.compileClass((KtjClass) clazz, name, path);
-        else if(clazz instanceof KtjInterface) ClassCompiler.compileInterface((KtjInterface) clazz, name, path);
+        if(clazz instanceof KtjTypeClass) return ClassCompiler.compileTypeClass((KtjTypeClass) clazz, name, path);
+        else if(clazz instanceof KtjDataClass) return ClassCompiler.compileDataClass((KtjDataClass) clazz, name, path);
+        else if(clazz instanceof KtjClass) return ClassCompiler.compileClass(this, (KtjClass) clazz, name, path);
+        else if(clazz instanceof KtjInterface) return ClassCompiler.compileInterface(this, (KtjInterface) clazz, name, path);
+        return null;
     }
 
-    public static Compiler Instance(){
-        return COMPILER == null ? NewInstance() : COMPILER;
-    }
-
-    public static Compiler NewInstance(){
-        return (COMPILER = new Compiler());
-    }
 }
@@ -19,9 +19,11 @@ package com.github.ktj.compiler;
 import com.github.ktj.bytecode.AccessFlag;
 import com.github.ktj.lang.*;
 
-import java.lang.reflect.*;
-import java.util.ArrayList;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
 public class CompilerUtil {
@@ -89,141 +91,87 @@ public class CompilerUtil {
     }
 
     public static String toDesc(String...types){
-        StringBuilder desc = new StringBuilder();
-
-        for(String type:types){
-            switch (type){
-                case "int":
-                    desc.append("I");
-                    break;
-                case "short":
-                    desc.append("S");
-                    break;
-                case "long":
-                    desc.append("J");
-                    break;
-                case "double":
-                    desc.append("D");
-                    break;
-                case "float":
-                    desc.append("F");
-                    break;
-                case "boolean":
-                    desc.append("Z");
-                    break;
-                case "char":
-                    desc.append("C");
-                    break;
-                case "byte":
-                    desc.append("B");
-                    break;
-                case "void":
-                    desc.append("V");
-                    break;
-                default:
-                    if(type.startsWith("[")) desc.append("[").append(toDesc(type.substring(1)));
-                    else desc.append("L").append(type.replace(".", "/")).append(";");
-                    break;
-            }
-        }
+        if(types.length == 1) return TypeRef.descriptor(types[0]);
 
+        StringBuilder desc = new StringBuilder();
+        for(String type:types) desc.append(TypeRef.descriptor(type));
         return desc.toString();
     }
 
-    public static String signatureToDesc(String methodSignature, String returnType){
-        StringBuilder sb = new StringBuilder("(");
-        if(!methodSignature.isEmpty()) for(String arg:methodSignature.split("%")) sb.append(toDesc(arg));
-        sb.append(")").append(toDesc(returnType));
-        return sb.toString();
+    public static String signatureToDesc(Compiler compiler, String methodSignature, String returnType){
+        return compiler.types.descriptor(methodSignature, returnType);
     }
 
-    public static boolean classExist(String name){
-        if(name.startsWith("[")) return classExist(name.substring(1));
+    public static boolean classExist(Compiler compiler, String name){
+        if(name.startsWith("[")) return classExist(compiler, name.substring(1));
 
         if(PRIMITIVES.contains(name)) return true;
 
-        try {
-            Class.forName(name);
-            return true;
-        }catch(ClassNotFoundException ignored){}
+        if(compiler.classes.containsKey(name)) return true;
 
-        return Compiler.Instance().classes.containsKey(name);
+        return compiler.symbols.get(name) != null;
     }
 
-    public static boolean isInterface(String name){
-        Compilable c = Compiler.Instance().classes.get(name);
+    public static boolean isInterface(Compiler compiler, String name){
+        Compilable c = compiler.classes.get(name);
 
         if(c != null){
             return c instanceof KtjInterface && !(c instanceof KtjClass);
         }else{
-            try {
-                return Class.forName(name).isInterface();
-            }catch(ClassNotFoundException ignored){}
+            ClassSymbol symbol = compiler.symbols.get(name);
+            return symbol != null && symbol.isInterface;
         }
-
-        return false;
     }
 
-    public static boolean isClass(String name){
-        Compilable c = Compiler.Instance().classes.get(name);
+    public static boolean isClass(Compiler compiler, String name){
+        Compilable c = compiler.classes.get(name);
 
         if(c != null){
             return c instanceof KtjClass;
         }else{
-            try {
-                return !Class.forName(name).isEnum() && !Class.forName(name).isInterface();
-            }catch(ClassNotFoundException ignored){}
+            ClassSymbol symbol = compiler.symbols.get(name);
+            return symbol != null && !symbol.isEnum && !symbol.isInterface;
         }
-
-        return false;
     }
 
-    public static boolean isType(String name){
-        Compilable c = Compiler.Instance().classes.get(name);
+    public static boolean isType(Compiler compiler, String name){
+        Compilable c = compiler.classes.get(name);
 
         if(c != null){
             return c instanceof KtjTypeClass;
         }else{
-            try {
-                return Class.forName(name).isEnum();
-            }catch(ClassNotFoundException ignored){}
+            ClassSymbol symbol = compiler.symbols.get(name);
+            return symbol != null && symbol.isEnum;
         }
-
-        return false;
     }
 
-    public static String[] getTypes(String name){
-        Compilable c = Compiler.Instance().classes.get(name);
+    public static String[] getTypes(Compiler compiler, String name){
+        Compilable c = compiler.classes.get(name);
 
         if(c != null){
             assert c instanceof KtjTypeClass;
             return ((KtjTypeClass) c).values;
         }else{
-            try{
-                Class<?> clazz = Class.forName(name);
-                assert clazz.isEnum();
-                Enum<?>[] values = (Enum<?>[]) clazz.getEnumConstants();
-                ArrayList<String> result = new ArrayList<>();
-                for(Enum<?> e:values) result.add(e.name());
-                return result.toArray(new String[0]);
-            }catch(ClassNotFoundException ignored){}
+            ClassSymbol symbol = compiler.symbols.get(name);
+            assert symbol == null || symbol.isEnum;
+            if(symbol != null) return symbol.enumConstants;
         }
 
         return new String[0];
     }
 
-    public static String[] getOperatorReturnType(String type, String operator){
+    public static String[] getOperatorReturnType(Compiler compiler, String type, String operator){
         if(type.equals("boolean") && operator.equals("!")) return new String[]{"boolean"};
         if((operator.equals("++") || operator.equals("--")) && PRIMITIVES.contains(type) && !type.equals("boolean")) return new String[]{type};
 
         if(!PRIMITIVES.contains(type)){
-            return getMethod(type, false, operatorToIdentifier(operator), type);
+            return getMethod(compiler, compiler.types.type(type), false, compiler.types.signature(operatorToIdentifier(operator)), type);
         }
 
         return null;
     }
 
-    public static String[] getOperatorReturnType(String type1, String type2, String operator){
+    public static String[] getOperatorReturnType(Compiler compiler, String type1, String type2, String operator){
         if(type1.equals("null")) return null;
 
         if(operator.equals("=")) return type1.equals(type2) ?new String[]{type1, operator} : null;
@@ -245,26 +193,35 @@ public class CompilerUtil {
         }else{
             if ((operator.equals("===") || operator.equals("!==")) && (type1.equals(type2) || type2.equals("null"))) return new String[]{"boolean", operator};
             if (operator.equals("+") && type1.equals("java.lang.String") && type2.equals("java.lang.String")) return new String[]{"java.lang.String", operator};
-            return getMethod(type1, false, operatorToIdentifier(operator)+"%"+type2, type1);
+            return getMethod(compiler, compiler.types.type(type1), false, compiler.types.signature(operatorToIdentifier(operator), compiler.types.type(type2)), type1);
         }
 
         return null;
     }
 
-    public static String[] getMethod(String clazzName, boolean statik, String method, String callingClazz){
-        String[] generics = clazzName.split("\\|").length == 2 ? clazzName.split("\\|")[1].split("%") : new String[0];
-        clazzName = clazzName.split("\\|")[0];
-        if(Compiler.Instance().classes.containsKey(clazzName)){
-            Compilable compilable = Compiler.Instance().classes.get(clazzName);
+    public static String[] getMethod(Compiler compiler, String clazzName, boolean statik, String method, String callingClazz){
+        return getMethod(compiler, compiler.types.type(clazzName), statik, compiler.types.signature(method), callingClazz);
+    }
+
+    static String[] getMethod(Compiler compiler, TypeRef clazzType, boolean statik, MethodSig method, String callingClazz){
+        return compiler.resolved.get(clazzType, statik, method, callingClazz, () -> resolveMethod(compiler, clazzType, statik, method, callingClazz));
+    }
+
+    private static String[] resolveMethod(Compiler compiler, TypeRef clazzType, boolean statik, MethodSig method, String callingClazz){
+        TypeRef[] generics = clazzType.arguments;
+        String clazzName = clazzType.name;
+        TypeRef[] parameters = method.parameters;
+
+        if(compiler.classes.containsKey(clazzName)){
+            Compilable compilable = compiler.classes.get(clazzName);
             if(compilable instanceof KtjDataClass){
-                if(!method.equals("<init>") || statik || method.split("%").length - 1 != ((KtjDataClass) compilable).fields.size()) return null;
+                if(!method.name.equals("<init>") || statik || parameters.length != ((KtjDataClass) compilable).fields.size()) return null;
 
-                String[] parameters = method.split("%");
                 KtjField[] fields = ((KtjDataClass) compilable).fields.values().toArray(new KtjField[0]);
                 boolean matches = true;
 
                 for (int i = 0; i < fields.length; i++){
-                    if(!isSuperClass(parameters[i + 1], fields[i].type)){
+                    if(!isSuperClass(compiler, parameters[i].name, fields[i].type)){
                         matches = false;
                         break;
                     }
@@ -276,144 +233,112 @@ public class CompilerUtil {
                     return new String[]{clazzName, sb.toString()};
                 }
             }else if(compilable instanceof KtjTypeClass){
-                return getMethod("java.lang.Enum", statik, method, callingClazz);
+                return getMethod(compiler, compiler.types.type("java.lang.Enum"), statik, method, callingClazz);
             }else if(compilable instanceof KtjInterface){
-                String methodName = method.split("%")[0];
-                for(String mName:((KtjInterface) compilable).methods.keySet()){
-                    if((mName.startsWith(methodName+"%") || mName.equals(methodName)) && (method.split("%").length - 1) == ((KtjInterface) compilable).methods.get(mName).parameter.length){
-                        String[] parameters = method.split("%");
-                        KtjMethod.Parameter[] parameter = ((KtjInterface) compilable).methods.get(mName).parameter;
-                        boolean matches = true;
-
-                        for (int i = 0; i < parameter.length; i++){
-                            if(compilable.uses.containsKey(parameter[i].type)) {
-                                if (!isSuperClass(parameters[i + 1], parameter[i].type)) {
+                for(String mName:((KtjInterface) compilable).getMethods(method.name, parameters.length)){
+                    MethodSig sig = compiler.types.signature(mName);
+                    KtjMethod.Parameter[] parameter = ((KtjInterface) compilable).methods.get(mName).parameter;
+                    boolean matches = true;
+
+                    for (int i = 0; i < parameter.length; i++){
+                        if(compilable.uses.containsKey(parameter[i].type)) {
+                            if (!isSuperClass(compiler, parameters[i].name, parameter[i].type)) {
+                                matches = false;
+                                break;
+                            }
+                        }else{
+                            for(int j = 0;j < compilable.genericTypes.size();j++){
+                                if(parameter[i].type.equals(compilable.genericTypes.get(j).type) && !isSuperClass(compiler, parameters[i].name, generics[j].name)){
                                     matches = false;
                                     break;
                                 }
-                            }else{
-                                for(int j = 0;j < compilable.genericTypes.size();j++){
-                                    if(parameter[i].type.equals(compilable.genericTypes.get(j).type) && !isSuperClass(parameters[i + 1], generics[j])){
-                                        matches = false;
-                                        break;
-                                    }
-                                }
-                                if(!matches) break;
                             }
+                            if(!matches) break;
                         }
+                    }
 
-                        if(matches && canAccess(callingClazz, clazzName, ((KtjInterface) compilable).methods.get(mName).modifier.accessFlag) && (((KtjInterface) compilable).methods.get(mName).modifier.statik == statik)){
-                            if(compilable.uses.containsKey(((KtjInterface) compilable).methods.get(mName).returnType) || mName.startsWith("<init>")) return new String[]{((KtjInterface) compilable).methods.get(mName).returnType, mName.contains("%") ? mName.split("%", 2)[1] : "", null};
-                            else for(int j = 0;j < compilable.genericTypes.size();j++) if(((KtjInterface) compilable).methods.get(mName).returnType.equals(compilable.genericTypes.get(j).name)) return new String[]{generics[j], mName.contains("%") ? mName.split("%", 2)[1] : "", generics[j]};
-                        }
+                    if(matches && canAccess(compiler, callingClazz, clazzName, ((KtjInterface) compilable).methods.get(mName).modifier.accessFlag) && (((KtjInterface) compilable).methods.get(mName).modifier.statik == statik)){
+                        if(compilable.uses.containsKey(((KtjInterface) compilable).methods.get(mName).returnType) || sig.name.equals("<init>")) return new String[]{((KtjInterface) compilable).methods.get(mName).returnType, sig.parameterList, null};
+                        else for(int j = 0;j < compilable.genericTypes.size();j++) if(((KtjInterface) compilable).methods.get(mName).returnType.equals(compilable.genericTypes.get(j).name)) return new String[]{generics[j].toString(), sig.parameterList, generics[j].toString()};
                     }
                 }
 
-                if(compilable instanceof KtjClass) return getMethod(((KtjClass) compilable).superclass, statik, method, callingClazz);
+                if(compilable instanceof KtjClass) return getMethod(compiler, compiler.types.type(((KtjClass) compilable).superclass), statik, method, callingClazz);
             }
         }else{
-            try{
-                Class<?> clazz = Class.forName(clazzName);
-                String methodName = method.split("%")[0];
-                String[] parameters = method.split("%");
-                if(methodName.equals("<init>")){
-                    if(statik) return null;
-                    for(Constructor<?> constructor:clazz.getConstructors()){
-                        if(constructor.getParameterCount() == parameters.length - 1) {
-                            boolean matches = true;
-                            for (int i = 0; i < constructor.getParameterCount(); i++) {
-                                if (!isSuperClass(parameters[i + 1], adjustType(constructor.getParameterTypes()[i].getTypeName()))) {
-                                    matches = false;
-                                    break;
-                                }
-                            }
-                            if (matches && canAccess(callingClazz, clazzName, getAccessFlag(constructor.getModifiers()))) {
-                                StringBuilder sb = new StringBuilder();
-                                for(Class<?> field:constructor.getParameterTypes()) sb.append(sb.length() == 0 ? "":"%").append(adjustType(field.getTypeName()));
-                                return new String[]{clazzName, sb.toString()};
-                            }
+            ClassSymbol clazz = compiler.symbols.get(clazzName);
+            if(clazz == null) return null;
+
+            if(method.name.equals("<init>")){
+                if(statik) return null;
+                for(ClassSymbol.MethodSymbol constructor:clazz.getConstructors(parameters.length)){
+                    boolean matches = true;
+                    for (int i = 0; i < constructor.parameterTypes.length; i++) {
+                        if (!isSuperClass(compiler, parameters[i].name, constructor.parameterTypes[i])) {
+                            matches = false;
+                            break;
                         }
                     }
-                }else{
-                    for(Method m:clazz.getMethods()){
-                        if(m.getName().equals(methodName) && m.getParameterCount() == parameters.length - 1) {
-                            boolean matches = true;
-                            for (int i = 0; i < m.getParameterCount(); i++) {
-                                if (!isSuperClass(parameters[i + 1], adjustType(m.getParameterTypes()[i].getTypeName()))) {
-                                    matches = false;
-                                    break;
-                                }
-                            }
-                            if (matches && canAccess(callingClazz, clazzName, getAccessFlag(m.getModifiers())) && ((m.getModifiers() & AccessFlag.STATIC) != 0) == statik) {
-                                StringBuilder sb = new StringBuilder();
-                                for(int i = 0;i < m.getParameterCount();i++){
-                                    sb.append(sb.length() == 0 ? "":"%").append(adjustType(m.getParameterTypes()[i].getTypeName()));
-                                    if(m.getGenericParameterTypes()[i] instanceof TypeVariable<?>){
-                                        TypeVariable<?>[] typeParameters = Class.forName(clazzName).getTypeParameters();
-                                        for(int j = 0; j < typeParameters.length; j++) if(typeParameters[j].getName().equals(((TypeVariable<?>) m.getGenericParameterTypes()[i]).getName()) && !generics[j].equals(parameters[i + 1])) return null;
-                                    }
-                                }
-
-                                if(m.getGenericReturnType() instanceof TypeVariable<?>){
-                                    TypeVariable<?>[] typeParameters = Class.forName(clazzName).getTypeParameters();
-                                    for(int i = 0; i < typeParameters.length; i++) if(typeParameters[i].getName().equals(((TypeVariable<?>) m.getGenericReturnType()).getName())) return new String[]{generics[i], sb.toString(), generics[i]};
-                                }else return new String[]{m.getReturnType().getName(), sb.toString()};
-                            }
+                    if (matches && canAccess(compiler, callingClazz, clazzName, getAccessFlag(constructor.modifiers))) return new String[]{clazzName, constructor.parameterList};
+                }
+            }else{
+                for(ClassSymbol.MethodSymbol m:clazz.getMethods(method.name, parameters.length)){
+                    boolean matches = true;
+                    for (int i = 0; i < m.parameterTypes.length; i++) {
+                        if (!isSuperClass(compiler, parameters[i].name, m.parameterTypes[i])) {
+                            matches = false;
+                            break;
+                        }
+                    }
+                    if (matches && canAccess(compiler, callingClazz, clazzName, getAccessFlag(m.modifiers)) && ((m.modifiers & AccessFlag.STATIC) != 0) == statik) {
+                        for(int i = 0;i < m.parameterTypes.length;i++){
+                            int j = m.parameterVariables[i] == null ? -1 : clazz.typeParameterIndex(m.parameterVariables[i]);
+                            if(j != -1 && generics[j] != parameters[i]) return null;
                         }
+
+                        if(m.returnVariable == null) return new String[]{m.returnType, m.parameterList};
+
+                        int i = clazz.typeParameterIndex(m.returnVariable);
+                        if(i != -1) return new String[]{generics[i].toString(), m.parameterList, generics[i].toString()};
                     }
                 }
+            }
 
-                if(!clazzName.equals("java.lang.Object")) return getMethod(clazz.getSuperclass().getName(), statik, method, callingClazz);
-            }catch(ClassNotFoundException ignored){}
+            if(!clazzName.equals("java.lang.Object") && clazz.superclass != null) return getMethod(compiler, compiler.types.type(clazz.superclass), statik, method, callingClazz);
         }
         return null;
     }
 
-    private static String adjustType(String type){
-        if(!type.contains("[")) return type;
-
-        StringBuilder result = new StringBuilder(type.split("\\[")[0]);
-        for(int i=0;i<type.split("\\[").length - 1;i++)  result.insert(0, "[");
-        return result.toString();
-    }
-
-    public static int getEnumOrdinal(String clazz, String value){
-        if(Compiler.Instance().classes.containsKey(clazz) && Compiler.Instance().classes.get(clazz) instanceof KtjTypeClass){
-            KtjTypeClass c = (KtjTypeClass) Compiler.Instance().classes.get(clazz);
+    public static int getEnumOrdinal(Compiler compiler, String clazz, String value){
+        if(compiler.classes.containsKey(clazz) && compiler.classes.get(clazz) instanceof KtjTypeClass){
+            KtjTypeClass c = (KtjTypeClass) compiler.classes.get(clazz);
             return c.ordinal(value);
         }
-        try{
-            Class<?> c = Class.forName(clazz);
-            if(c.isEnum()){
-                Object[] enumConstants = c.getEnumConstants();
-                for(Object enumConstant:enumConstants){
-                    if(enumConstant.toString().equals(value)) return ((Enum<?>) enumConstant).ordinal();
-                }
-            }
-        }catch(ClassNotFoundException ignored){}
+        ClassSymbol symbol = compiler.symbols.get(clazz);
+        if(symbol != null) for(int i = 0;i < symbol.enumConstants.length;i++) if(symbol.enumConstants[i].equals(value)) return i;
         return -1;
     }
 
-    public static String[] getFieldType(String clazzName, String field, boolean statik, String callingClazz){
-        String[] generics = clazzName.split("\\|").length == 2 ? clazzName.split("\\|")[1].split("%") : new String[0];
-        clazzName = clazzName.split("\\|")[0];
+    public static String[] getFieldType(Compiler compiler, String clazzName, String field, boolean statik, String callingClazz){
+        TypeRef[] generics = compiler.types.type(clazzName).arguments;
+        clazzName = compiler.types.type(clazzName).name;
 
         if(clazzName.startsWith("[")){
             if(!field.equals("length")) return null;
             return new String[]{"int", null};
         }
 
-        Compilable compilable = Compiler.Instance().classes.get(clazzName);
+        Compilable compilable = compiler.classes.get(clazzName);
 
         if(compilable != null) {
             if(compilable instanceof KtjClass){
                 if (((KtjClass)(compilable)).fields.containsKey(field) && ((KtjClass)(compilable)).fields.get(field).modifier.statik == statik) {
-                    if(!canAccess(callingClazz, clazzName, ((KtjClass) (compilable)).fields.get(field).modifier.accessFlag)) return null;
+                    if(!canAccess(compiler, callingClazz, clazzName, ((KtjClass) (compilable)).fields.get(field).modifier.accessFlag)) return null;
                     String type = ((KtjClass) (compilable)).fields.get(field).type;
                     int gi = compilable.genericIndex(type);
                     if(gi == -1) return new String[]{type, null};
                     if(generics.length == 0) return new String[]{compilable.correctType(type), null};
-                    return new String[]{compilable.genericTypes.get(gi).type, generics[gi]};
+                    return new String[]{compilable.genericTypes.get(gi).type, generics[gi].toString()};
                 }
             }else if(compilable instanceof KtjTypeClass){
                 if (((KtjTypeClass)(compilable)).hasValue(field) && statik) return new String[]{clazzName, null};
@@ -422,24 +347,23 @@ public class CompilerUtil {
                     return new String[]{((KtjDataClass)(compilable)).fields.get(field).type, null};
             }
         }else{
-            try{
-                Field f = Class.forName(clazzName).getField(field);
-                if((((f.getModifiers() & AccessFlag.STATIC) != 0) == statik) && canAccess(callingClazz, clazzName, getAccessFlag(f.getModifiers()))){
-                    if(f.getGenericType() instanceof TypeVariable<?>){
-                        TypeVariable<?>[] typeParameters = Class.forName(clazzName).getTypeParameters();
-                        for(int i = 0; i < typeParameters.length; i++) if(typeParameters[i].getName().equals(((TypeVariable<?>) f.getGenericType()).getName())) return new String[]{f.getType().getName(), generics[i]};
-                    }else return new String[]{f.getType().getName(), null};
-                }
-            }catch(Exception ignored){}
+            ClassSymbol symbol = compiler.symbols.get(clazzName);
+            ClassSymbol.FieldSymbol f = symbol == null ? null : symbol.getField(field);
+            if(f != null && (((f.modifiers & AccessFlag.STATIC) != 0) == statik) && canAccess(compiler, callingClazz, clazzName, getAccessFlag(f.modifiers))){
+                if(f.variable == null) return new String[]{f.type, null};
+
+                int i = symbol.typeParameterIndex(f.variable);
+                if(i != -1 && i < generics.length) return new String[]{f.type, generics[i].toString()};
+            }
         }
 
         return null;
     }
 
-    private static boolean canAccess(String type1, String type2, AccessFlag flag){
+    private static boolean canAccess(Compiler compiler, String type1, String type2, AccessFlag flag){
         if(flag == AccessFlag.ACC_PUBLIC) return true;
         if(flag == AccessFlag.ACC_PRIVATE) return type1.equals(type2);
-        if(flag == AccessFlag.ACC_PROTECTED) return isSuperClass(type1, type2);
+        if(flag == AccessFlag.ACC_PROTECTED) return isSuperClass(compiler, type1, type2);
 
         String pakage1 = type1.contains(".") ? type1.substring(0, type1.lastIndexOf('.')) : "";
         String pakage2 = type2.contains(".") ? type2.substring(0, type2.lastIndexOf('.')) : "";
@@ -453,95 +377,82 @@ public class CompilerUtil {
         else return AccessFlag.ACC_PACKAGE_PRIVATE;
     }
 
-    public static boolean canAccess(String type1, String type2){
-        if(Compiler.Instance().classes.containsKey(type2)) return canAccess(type1, type2, Compiler.Instance().classes.get(type2).modifier.accessFlag);
-        try{
-            return canAccess(type1, type2, getAccessFlag(Class.forName(type2).getModifiers()));
-        }catch(ClassNotFoundException e){
-            throw new RuntimeException("unable to find "+type2);
-        }
+    public static boolean canAccess(Compiler compiler, String type1, String type2){
+        if(compiler.classes.containsKey(type2)) return canAccess(compiler, type1, type2, compiler.classes.get(type2).modifier.accessFlag);
+        ClassSymbol symbol = compiler.symbols.get(type2);
+        if(symbol == null) throw new RuntimeException("unable to find "+type2);
+        return canAccess(compiler, type1, type2, getAccessFlag(symbol.modifiers));
     }
 
-    public static boolean validateGenericTypes(String clazzName, String...types){
+    public static boolean validateGenericTypes(Compiler compiler, String clazzName, String...types){
         if(types.length == 0) return true;
 
-        Compilable c = Compiler.Instance().classes.get(clazzName);
+        Compilable c = compiler.classes.get(clazzName);
         if(c != null){
             if(c instanceof KtjDataClass){
                 return false;
             }else if(c instanceof KtjInterface){
                 if(types.length != c.genericTypes.size()) return false;
-                for(int i = 0;i < types.length;i++) if(!isSuperClass(types[i], c.genericTypes.get(i).type)) return false;
+                for(int i = 0;i < types.length;i++) if(!isSuperClass(compiler, types[i], c.genericTypes.get(i).type)) return false;
                 return true;
             }
         }else{
-            try{
-                Class<?> clazz = Class.forName(clazzName);
-                TypeVariable<?>[] typeParameters = clazz.getTypeParameters();
-                if(typeParameters.length != types.length) return false;
-                for(TypeVariable<?> type:typeParameters) for(Type bound:type.getBounds()) if(!isSuperClass(clazzName, bound.getTypeName())) return false;
-                return true;
-            }catch(ClassNotFoundException ignored){
-                return false;
-            }
+            ClassSymbol symbol = compiler.symbols.get(clazzName);
+            if(symbol == null || symbol.typeParameters.length != types.length) return false;
+            for(String[] bounds:symbol.typeParameterBounds) for(String bound:bounds) if(!isSuperClass(compiler, clazzName, bound)) return false;
+            return true;
         }
 
         return false;
     }
 
-    public static boolean isFinal(String clazz){
-        Compilable compilable = Compiler.Instance().classes.get(clazz);
+    /** @return the return types of the abstract methods declared by the java interface, by method descriptor like "compareTo%java.lang.Object", or null if there is no such class */
+    public static LinkedHashMap<String, String> getAbstractMethods(Compiler compiler, String interfaceName){
+        ClassSymbol symbol = compiler.symbols.get(interfaceName);
+        if(symbol == null) return null;
+
+        LinkedHashMap<String, String> methods = new LinkedHashMap<>();
+        for(List<ClassSymbol.MethodSymbol> overloads:symbol.methods.values()){
+            for(ClassSymbol.MethodSymbol m:overloads){
+                if(!m.owner.equals(interfaceName) || (m.modifiers & AccessFlag.ABSTRACT) == 0) continue;
+
+                StringBuilder desc = new StringBuilder(m.name);
+                for(String p:m.parameterTypes) desc.append("%").append(p);
+                methods.put(desc.toString(), m.returnType);
+            }
+        }
+        return methods;
+    }
+
+    public static boolean isFinal(Compiler compiler, String clazz){
+        Compilable compilable = compiler.classes.get(clazz);
 
         if(compilable != null){
             return compilable.modifier.finaly;
         }else{
-            try{
-                Class<?> c = Class.forName(clazz);
-                return (c.getModifiers() & AccessFlag.FINAL) != 0;
-            }catch(ClassNotFoundException ignored){}
+            ClassSymbol symbol = compiler.symbols.get(clazz);
+            return symbol != null && (symbol.modifiers & AccessFlag.FINAL) != 0;
         }
-
-        return false;
     }
 
-    public static boolean isSuperClass(String clazz, String superClass){
+    public static boolean isSuperClass(Compiler compiler, String clazz, String superClass){
         if(clazz.equals(superClass)) return true;
         if(PRIMITIVES.contains(clazz) || PRIMITIVES.contains(superClass)) return false;
         if(clazz.equals("java.lang.Object")) return false;
         if(superClass.equals("java.lang.Object")) return true;
 
-        if(Compiler.Instance().classes.containsKey(clazz)){
-            Compilable c = Compiler.Instance().classes.get(clazz);
-
-            if(c instanceof KtjInterface && !(c instanceof KtjClass)) return false;
-            else if(c instanceof KtjTypeClass) return superClass.equals("java.lang.Enum");
-            else if(c instanceof KtjClass){
-                if(((KtjClass) c).superclass != null && ((KtjClass) c).superclass.equals(superClass)) return true;
-                for(String i:((KtjClass) c).interfaces) if(i.equals(superClass)) return true;
-
-                return ((KtjClass) c).superclass != null && isSuperClass(((KtjClass) c).superclass, superClass);
-            }
-        }else{
-            try{
-                Class<?> c = Class.forName(clazz);
-                if(c.getSuperclass().toString().split(" ")[1].equals(superClass)) return true;
-                for(Class<?> i:c.getInterfaces()) if(i.toString().split(" ")[1].equals(superClass)) return true;
-
-                return isSuperClass(clazz, c.getSuperclass().toString().split(" ")[1]);
-            }catch(ClassNotFoundException ignored){}
-        }
-        return false;
+        return compiler.hierarchy.isSubtype(clazz, superClass);
     }
 
-    public static boolean canCast(String type, String to){
+    public static boolean canCast(Compiler compiler, String type, String to){
         if(PRIMITIVES.contains(type) && PRIMITIVES.contains(to)) return !type.equals("boolean") && !to.equals("boolean");
 
         if(type.startsWith("[")){
             if(!to.startsWith("[")) return false;
-            return canCast(type.substring(1), to.substring(1));
+            return canCast(compiler, type.substring(1), to.substring(1));
         }
 
-        return isSuperClass(type, to) || isSuperClass(to, type);
+        return isSuperClass(compiler, type, to) || isSuperClass(compiler, to, type);
     }
 
     static AST.Return getDefaultReturn(String type){
@@ -621,4 +532,21 @@ public class CompilerUtil {
                 return "null";
         }
     }
+
+    /** @return the SHA-256 hash of the given parts as hex string */
+    static String hash(byte[]... parts){
+        MessageDigest digest;
+
+        try{
+            digest = MessageDigest.getInstance("SHA-256");
+        }catch(NoSuchAlgorithmException e){
+            throw new RuntimeException(e);
+        }
+
+        for(byte[] part:parts) digest.update(part);
+
+        StringBuilder hash = new StringBuilder();
+        for(byte b:digest.digest()) hash.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hash.toString();
+    }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+/**
+ * An error of a compilation, with the source file and line it was found at, if they are known.
+ */
+public final class Diagnostic {
+
+    /** the path of the source file relative to the source root, like p/A.ktj, or null */
+    public final String file;
+    /** the line in the source file or -1 */
+    public final int line;
+    public final String message;
+
+    public Diagnostic(String file, int line, String message){
+        this.file = file;
+        this.line = line;
+        this.message = message;
+    }
+
+    static Diagnostic of(RuntimeException e){
+        String message = e.getMessage() == null ? e.toString() : e.getMessage();
+        if(!(e instanceof ParsingException)) return new Diagnostic(null, -1, message);
+
+        ParsingException exception = (ParsingException) e;
+        return new Diagnostic(exception.getFile(), exception.getLine(), message);
+    }
+
+    @Override
+    public String toString(){
+        return file == null ? message : file+":"+line+": "+message;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * Computes stack map frames with the type hierarchy of the compiler, so merging types neither loads classes nor fails for classes of the same compilation.
+ */
+final class FrameWriter extends ClassWriter{
+
+    private final TypeHierarchy hierarchy;
+
+    FrameWriter(TypeHierarchy hierarchy){
+        super(COMPUTE_FRAMES);
+        this.hierarchy = hierarchy;
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2){
+        String common = hierarchy.getCommonSuperclass(type1.replace('/', '.'), type2.replace('/', '.'));
+        return common == null ? super.getCommonSuperClass(type1, type2) : common.replace('.', '/');
+    }
+}
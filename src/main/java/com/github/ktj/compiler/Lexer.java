@@ -17,218 +17,181 @@
 package com.github.ktj.compiler;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 
 final class Lexer{
 
-    static TokenHandler lex(File file) throws FileNotFoundException{
-        List<Token[]> result = new ArrayList<>();
-        List<Token> token = new ArrayList<>();
+    private static final byte OTHER = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte DIGIT = 3;
+    private static final byte LETTER = 4;
+    private static final byte OPERATOR = 5;
+    private static final byte COMMENT = 6;
+    private static final byte STRING = 7;
+    private static final byte CHAR = 8;
+
+    private static final byte[] CHARS = new byte[128];
+
+    static{
+        CHARS['\t'] = WHITESPACE;
+        CHARS['\r'] = WHITESPACE;
+        CHARS[' '] = WHITESPACE;
+        CHARS['\n'] = NEWLINE;
+        for(char c = '0';c <= '9';c++) CHARS[c] = DIGIT;
+        for(char c = 'a';c <= 'z';c++) CHARS[c] = LETTER;
+        for(char c = 'A';c <= 'Z';c++) CHARS[c] = LETTER;
+        for(char c:"-+*/!=<>%&|^~".toCharArray()) CHARS[c] = OPERATOR;
+        CHARS['#'] = COMMENT;
+        CHARS['"'] = STRING;
+        CHARS['\''] = CHAR;
+    }
 
-        Scanner sc = new Scanner(file);
-        List<Character> chars = new ArrayList<>();
-        StringBuilder value;
-        int line = 0;
+    /** @param name the source file without the .ktj extension, relative to the source root, like p\A */
+    static TokenHandler lex(File file, String name) throws IOException{
+        return lex(read(file), name);
+    }
 
-        while(sc.hasNextLine()){
-            for(char c:sc.nextLine().trim().toCharArray()) chars.add(c);
-            chars.add('\n');
-        }
+    /** lexes the decoded content of a file, named like {@link #lex(File, String)} */
+    static TokenHandler lex(CharBuffer source, String name){
+        return new TokenHandler(lex(source.array(), source.limit(), name, 0), name);
+    }
 
-        for(int i = 0; i < chars.size();i++){
-            if(chars.get(i) == '\n'){
-                result.add(token.toArray(new Token[0]));
-                token = new ArrayList<>();
-                line++;
-            }else if(chars.get(i) == '#'){
-                i++;
-                if(chars.get(i) != '#') while (i < chars.size() && chars.get(i) != '#' && chars.get(i) != '\n') i++;
-                else{
-                    while(i + 1 < chars.size()){
-                        i++;
-                        if(chars.get(i) == '#' && chars.get(i - 1) == '#') break;
-                    }
-                }
-            }else if(Character.isDigit(chars.get(i))){
-                value = new StringBuilder();
-                value.append(chars.get(i));
-                Token.Type type;
-                while(i + 1 < chars.size() && Character.isDigit(chars.get(i + 1))){
-                    i++;
-                    value.append(chars.get(i));
-                }
-                if(i + 1 < chars.size() && chars.get(i + 1) == '.'){
-                    i++;
-                    value.append(chars.get(i));
-                    while(i + 1 < chars.size() && Character.isDigit(chars.get(i + 1))){
-                        i++;
-                        value.append(chars.get(i));
-                    }
-                    type = Token.Type.DOUBLE;
-                }else type = Token.Type.INTEGER;
+    /** lexes the source of a file which is not read from disk, named like {@link #lex(File, String)} */
+    static TokenHandler lex(String file, String source){
+        char[] chars = source.toCharArray();
+        return new TokenHandler(lex(chars, chars.length, file, 0), file);
+    }
 
-                if(i + 1 < chars.size() && chars.get(i + 1) == 'f') {
-                    type = Token.Type.FLOAT;
-                    i++;
-                    value.append("f");
-                }else if(i + 1 < chars.size() && chars.get(i + 1) == 'd'){
-                    type = Token.Type.DOUBLE;
-                    i++;
-                    value.append("d");
-                }else if(i + 1 < chars.size() && chars.get(i + 1) == 'i'){
-                    type = Token.Type.INTEGER;
-                    i++;
-                    value.append("i");
-                }else if(i + 1 < chars.size() && chars.get(i + 1) == 's'){
-                    type = Token.Type.SHORT;
-                    i++;
-                    value.append("s");
-                }else if(i + 1 < chars.size() && chars.get(i + 1) == 'l'){
-                    type = Token.Type.LONG;
-                    i++;
-                    value.append("i");
-                }
+    /** lexes code which starts at the given 1-based line */
+    static TokenStream lex(String code, String file, int line){
+        return lex(code.toCharArray(), code.length(), file, Math.max(line - 1, 0));
+    }
 
-                token.add(new Token(value.toString(), type));
-            }else if(Character.isLetter(chars.get(i))){
-                value = new StringBuilder();
-                value.append(chars.get(i));
-                while(i + 1 < chars.size() && (Character.isDigit(chars.get(i + 1)) || Character.isLetter(chars.get(i + 1)) || chars.get(i + 1) == '_')){
-                    i++;
-                    value.append(chars.get(i));
+    private static TokenStream lex(char[] chars, int length, String file, int line){
+        TokenStream token = new TokenStream(chars, length / 4);
+
+        for(int i = 0; i < length;i++){
+            char c = chars[i];
+
+            switch(c < 128 ? CHARS[c] : Character.isLetter(c) ? LETTER : Character.isDigit(c) ? DIGIT : OTHER){
+                case WHITESPACE:
+                    break;
+                case NEWLINE:
+                    line++;
+                    break;
+                case COMMENT:
+                    if(i + 1 < length && chars[i + 1] == '#'){
+                        i += 2;
+                        while(i < length && !(chars[i] == '#' && chars[i - 1] == '#')){
+                            if(chars[i] == '\n') line++;
+                            i++;
+                        }
+                    }else{
+                        while(i + 1 < length && chars[i + 1] != '#' && chars[i + 1] != '\n') i++;
+                        if(i + 1 < length && chars[i + 1] == '#') i++;
+                    }
+                    break;
+                case DIGIT:
+                    i = lexNumber(chars, length, i, line, token);
+                    break;
+                case LETTER:{
+                    int start = i;
+                    while(i + 1 < length && (isLetter(chars[i + 1]) || isDigit(chars[i + 1]) || chars[i + 1] == '_')) i++;
+                    token.add(Token.Type.IDENTIFIER, Token.symbol(chars, start, i - start + 1), start, i - start + 1, line);
+                    break;
                 }
-                token.add(new Token(value.toString(), Token.Type.IDENTIFIER));
-            }else if(isOperator(chars.get(i))){
-                value = new StringBuilder();
-                value.append(chars.get(i));
-                while(i + 1 < chars.size() && isOperator(chars.get(i + 1))){
-                    i++;
-                    value.append(chars.get(i));
+                case OPERATOR:{
+                    int start = i;
+                    while(i + 1 < length && isOperator(chars[i + 1])) i++;
+                    token.add(Token.Type.OPERATOR, Token.symbol(chars, start, i - start + 1), start, i - start + 1, line);
+                    break;
                 }
-                token.add(new Token(value.toString(), Token.Type.OPERATOR));
-            }else if(chars.get(i) == '"'){
-                value = new StringBuilder();
-                value.append("\"");
-                while(chars.get(i + 1) != '"'){
-                    i++;
-                    value.append(chars.get(i));
+                case STRING:{
+                    int start = i, startLine = line;
+                    do if(chars[i] == '\n') line++; while(++i < length && chars[i] != '"');
+                    if(i >= length) throw new LexingException("Expected \"", file, startLine + 1);
+                    token.add(Token.Type.STRING, 0, start, i - start + 1, startLine);
+                    break;
                 }
-                value.append("\"");
-                i++;
-                if(chars.get(i) != '"') throw new LexingException("Expected \"", file.getPath()+"/"+file.getName(), line);
-                token.add(new Token(value.toString(), Token.Type.STRING));
-            }else if(chars.get(i) == '\''){
-                if(chars.size() >= i + 2 && chars.get(i + 2) == '\''){
-                    token.add(new Token("'"+chars.get(i + 1)+"'", Token.Type.CHAR));
-                    i += 3;
-                }else throw new LexingException("Expected '", file.getPath()+"/"+file.getName(), line);
-            }else if(!(chars.get(i) == '\r' || chars.get(i) == '\t' || chars.get(i) == ' ')) token.add(new Token(String.valueOf(chars.get(i)), Token.Type.SIMPLE));
+                case CHAR:
+                    if(i + 2 >= length || chars[i + 2] != '\'') throw new LexingException("Expected '", file, line + 1);
+                    token.add(Token.Type.CHAR, 0, i, 3, line);
+                    i += 2;
+                    break;
+                default:
+                    token.add(Token.Type.SIMPLE, Token.symbol(chars, i, 1), i, 1, line);
+                    break;
+            }
         }
 
-        return new TokenHandler(result.toArray(new Token[0][0]), file.getPath()+"\\"+file.getName(), 0);
+        return token;
     }
 
-    static TokenHandler lex(String code, String clazzName, int lineOffset){
-        List<Token[]> result = new ArrayList<>();
-        List<Token> token = new ArrayList<>();
-
-        char[] chars = code.toCharArray();
-        StringBuilder value;
-        int line = 0;
-
-        for(int i = 0; i < chars.length;i++){
-            if(chars[i] == '\n'){
-                result.add(token.toArray(new Token[0]));
-                token = new ArrayList<>();
-                line++;
-            }else if(chars[i] == '#'){
-                i++;
-                while (i < chars.length && chars[i] != '#' && chars[i] != '\n') i++;
-            }else if(Character.isDigit(chars[i])){
-                value = new StringBuilder();
-                value.append(chars[i]);
-                Token.Type type;
-                while(i + 1 < chars.length && Character.isDigit(chars[i + 1])){
-                    i++;
-                    value.append(chars[i]);
-                }
-                if(i + 1 < chars.length && chars[i + 1] == '.'){
-                    i++;
-                    value.append(chars[i]);
-                    while(i + 1 < chars.length && Character.isDigit(chars[i + 1])){
-                        i++;
-                        value.append(chars[i]);
-                    }
-                    type = Token.Type.DOUBLE;
-                }else type = Token.Type.INTEGER;
+    private static int lexNumber(char[] chars, int length, int i, int line, TokenStream token){
+        int start = i;
+        Token.Type type = Token.Type.INTEGER;
+
+        while(i + 1 < length && isDigit(chars[i + 1])) i++;
+
+        if(i + 2 < length && chars[i + 1] == '.' && isDigit(chars[i + 2])){
+            i += 2;
+            while(i + 1 < length && isDigit(chars[i + 1])) i++;
+            type = Token.Type.DOUBLE;
+        }
 
-                if(i + 1 < chars.length && chars[i + 1] == 'f') {
+        if(i + 1 < length){
+            switch(chars[i + 1]){
+                case 'f':
                     type = Token.Type.FLOAT;
                     i++;
-                    value.append("f");
-                }else if(i + 1 < chars.length && chars[i + 1] == 'd'){
+                    break;
+                case 'd':
                     type = Token.Type.DOUBLE;
                     i++;
-                    value.append("d");
-                }else if(i + 1 < chars.length && chars[i + 1] == 'i'){
+                    break;
+                case 'i':
                     type = Token.Type.INTEGER;
                     i++;
-                    value.append("i");
-                }else if(i + 1 < chars.length && chars[i + 1] == 's'){
+                    break;
+                case 's':
                     type = Token.Type.SHORT;
                     i++;
-                    value.append("s");
-                }else if(i + 1 < chars.length && chars[i + 1] == 'l'){
+                    break;
+                case 'l':
                     type = Token.Type.LONG;
                     i++;
-                    value.append("i");
-                }
+                    break;
+            }
+        }
 
-                token.add(new Token(value.toString(), type));
-            }else if(Character.isLetter(chars[i])){
-                value = new StringBuilder();
-                value.append(chars[i]);
-                while(i + 1 < chars.length && (Character.isDigit(chars[i + 1]) || Character.isLetter(chars[i + 1]) || chars[i + 1] == '_')){
-                    i++;
-                    value.append(chars[i]);
-                }
-                token.add(new Token(value.toString(), Token.Type.IDENTIFIER));
-            }else if(isOperator(chars[i])){
-                value = new StringBuilder();
-                value.append(chars[i]);
-                while(i + 1 < chars.length && isOperator(chars[i + 1])){
-                    i++;
-                    value.append(chars[i]);
-                }
-                token.add(new Token(value.toString(), Token.Type.OPERATOR));
-            }else if(chars[i] == '"'){
-                value = new StringBuilder();
-                value.append("\"");
-                while(chars[i + 1] != '"'){
-                    i++;
-                    value.append(chars[i]);
-                }
-                value.append("\"");
-                i++;
-                if(chars[i] != '"') throw new LexingException("Expected \"", clazzName, line);
-                token.add(new Token(value.toString(), Token.Type.STRING));
-            }else if(chars[i] == '\''){
-                if(chars.length >= i + 2 && chars[i + 2] == '\''){
-                    token.add(new Token("'"+chars[i + 1]+"'", Token.Type.CHAR));
-                    i += 3;
-                }else throw new LexingException("Expected '", clazzName, line);
-            }else if(!(chars[i] == '\r' || chars[i] == '\t' || chars[i] == ' ')) token.add(new Token(String.valueOf(chars[i]), Token.Type.SIMPLE));
+        token.add(type, 0, start, i - start + 1, line);
+        return i;
+    }
+
+    private static CharBuffer read(File file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+            while(bytes.hasRemaining() && channel.read(bytes) != -1);
+            bytes.flip();
+            return Charset.defaultCharset().decode(bytes);
         }
+    }
 
-        if(!token.isEmpty()) result.add(token.toArray(new Token[0]));
+    private static boolean isDigit(char c){
+        return c < 128 ? CHARS[c] == DIGIT : Character.isDigit(c);
+    }
 
-        return new TokenHandler(result.toArray(new Token[0][0]), clazzName, lineOffset);
+    private static boolean isLetter(char c){
+        return c < 128 ? CHARS[c] == LETTER : Character.isLetter(c);
     }
 
     public static boolean isOperator(char c){
-        return String.valueOf(c).matches("[-+*/!=<>%&|^~]");
+        return c < 128 && CHARS[c] == OPERATOR;
     }
 }
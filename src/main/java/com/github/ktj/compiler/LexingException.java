@@ -16,9 +16,8 @@
 
 package com.github.ktj.compiler;
 
-public class LexingException extends RuntimeException{
+public class LexingException extends ParsingException{
     public LexingException(String message, String file, int line){
-        super(message);
-        setStackTrace(new StackTraceElement[]{new StackTraceElement("", "", file, line)});
+        super(message, file, line);
     }
 }
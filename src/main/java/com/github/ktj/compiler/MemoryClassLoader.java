@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.Map;
+
+/**
+ * Defines compiled classes directly from their bytecode, so they can be executed without being written to disk.
+ */
+final class MemoryClassLoader extends ClassLoader{
+
+    private final Map<String, byte[]> classes;
+
+    MemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent){
+        super(parent);
+        this.classes = classes;
+    }
+
+    /** the compiled classes are found before the classes of the parent, like the out folder before the class path */
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException{
+        if(!classes.containsKey(name)) return super.loadClass(name, resolve);
+
+        synchronized(getClassLoadingLock(name)){
+            Class<?> clazz = findLoadedClass(name);
+            if(clazz == null) clazz = findClass(name);
+            if(resolve) resolveClass(clazz);
+            return clazz;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException{
+        byte[] bytecode = classes.get(name);
+        if(bytecode == null) throw new ClassNotFoundException(name);
+        return defineClass(name, bytecode, 0, bytecode.length);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers how method calls were resolved, so a call with the same target, signature and caller is only resolved once.
+ * Results are only remembered after the types of all kataja classes are validated.
+ */
+final class MethodCache{
+
+    private static final class Call{
+        private final TypeRef clazz;
+        private final boolean statik;
+        private final MethodSig method;
+        private final String caller;
+
+        Call(TypeRef clazz, boolean statik, MethodSig method, String caller){
+            this.clazz = clazz;
+            this.statik = statik;
+            this.method = method;
+            this.caller = caller;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Call)) return false;
+
+            Call call = (Call) o;
+            return clazz == call.clazz && statik == call.statik && method == call.method && Objects.equals(caller, call.caller);
+        }
+
+        @Override
+        public int hashCode(){
+            return Objects.hash(clazz, statik, method, caller);
+        }
+    }
+
+    private final TypeHierarchy hierarchy;
+    private final ConcurrentHashMap<Call, Optional<String[]>> resolved = new ConcurrentHashMap<>();
+
+    MethodCache(TypeHierarchy hierarchy){
+        this.hierarchy = hierarchy;
+    }
+
+    /** @return the result of resolve for the call, the returned array must not be modified */
+    String[] get(TypeRef clazz, boolean statik, MethodSig method, String caller, Supplier<String[]> resolve){
+        if(!hierarchy.isSealed()) return resolve.get();
+
+        Call call = new Call(clazz, statik, method, caller);
+        Optional<String[]> result = resolved.get(call);
+
+        if(result == null){
+            //resolving a call may resolve the same call on the superclass, so it can't happen inside computeIfAbsent
+            result = Optional.ofNullable(resolve.get());
+            resolved.putIfAbsent(call, result);
+        }
+
+        return result.orElse(null);
+    }
+}
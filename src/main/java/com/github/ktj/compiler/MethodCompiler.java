@@ -18,16 +18,18 @@ package com.github.ktj.compiler;
 
 import com.github.ktj.lang.KtjClass;
 import com.github.ktj.lang.KtjConstructor;
+import com.github.ktj.lang.KtjField;
 import com.github.ktj.lang.KtjInterface;
 import com.github.ktj.lang.KtjMethod;
 import javassist.bytecode.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.TreeMap;
 
 final class MethodCompiler {
 
-    private static MethodCompiler INSTANCE = null;
+    private final Compiler compiler;
     private final SyntacticParser parser;
     private KtjInterface clazz;
     private KtjMethod method;
@@ -36,11 +38,12 @@ final class MethodCompiler {
     private ConstPool cp;
     private String clazzName;
 
-    private MethodCompiler(){
-        parser = new SyntacticParser();
+    private MethodCompiler(Compiler compiler){
+        this.compiler = compiler;
+        parser = new SyntacticParser(compiler);
     }
 
-    private void compileCode(Bytecode code, String ktjCode, KtjInterface clazz, String clazzName, KtjMethod method, boolean isConstructor, ConstPool cp){
+    private void compileCode(Bytecode code, TokenSlice ktjCode, KtjInterface clazz, String clazzName, KtjMethod method, boolean isConstructor, ConstPool cp){
         this.code = code;
         this.clazz = clazz;
         this.cp = cp;
@@ -50,11 +53,11 @@ final class MethodCompiler {
 
         if(method instanceof KtjConstructor) compileSuperConstructorCall();
 
-        String initValues = "";
-        if(method instanceof KtjConstructor) initValues = ((KtjClass) clazz).initValues();
-        AST[] ast = parser.parseAst(clazzName, isConstructor, method, initValues+";"+ktjCode);
+        AST[] ast = parser.parseAst(clazzName, isConstructor, method, ktjCode);
 
         for (AST value : ast) compileAST(value);
+
+        code.setMaxLocals(os.getMaxLocals());
     }
 
     private void compileSuperConstructorCall(){
@@ -62,7 +65,7 @@ final class MethodCompiler {
         assert method instanceof KtjConstructor;
 
         code.addAload(0);
-        if(((KtjConstructor) method).superCall.isEmpty()){
+        if(((KtjConstructor) method).superCall == null){
             code.addInvokespecial(((KtjClass) clazz).superclass, "<init>", "()V");
         }else{
             AST ast = parser.parseAst(clazzName, true, method, ((KtjConstructor) method).superCall)[0];
@@ -103,6 +106,10 @@ final class MethodCompiler {
             return;
         }else code.addInvokevirtual(ast.type, "ordinal", "()I");
 
+        //lookupswitch keys have to be sorted
+        TreeMap<Integer, Integer> cases = new TreeMap<>();
+        for(Token t:ast.values.keySet()) cases.put(parseSwitchValue(t, ast.type), ast.values.get(t));
+
         int start = code.getSize();
 
         code.add(Opcode.LOOKUPSWITCH);
@@ -112,13 +119,13 @@ final class MethodCompiler {
         int defauld = code.getSize();
         code.addGap(8);
         code.write32bit(defauld, 0);
-        code.write32bit(defauld + 4, ast.values.size());
+        code.write32bit(defauld + 4, cases.size());
 
         //cases
-        for(Token t:ast.values.keySet()){
+        for(int value:cases.keySet()){
             int size = code.getSize();
             code.addGap(8);
-            code.write32bit(size, parseSwitchValue(t, ast.type));
+            code.write32bit(size, value);
             code.write32bit(size + 4, 0);
         }
 
@@ -146,8 +153,8 @@ final class MethodCompiler {
         }
 
         int i = 1;
-        for(Token t:ast.values.keySet()){
-            code.write32bit(defauld + 4 + (i * 8), starts.get(ast.values.get(t)) - start);
+        for(int value:cases.keySet()){
+            code.write32bit(defauld + 4 + (i * 8), starts.get(cases.get(value)) - start);
             i++;
         }
 
@@ -178,7 +185,7 @@ final class MethodCompiler {
         code.addAload(pos);
         code.addInvokevirtual("java.lang.String", "hashCode", "()I");
 
-        HashMap<Integer, ArrayList<String>> map = new HashMap<>();
+        TreeMap<Integer, ArrayList<String>> map = new TreeMap<>();
         for(Token t:ast.values.keySet()){
             if(!map.containsKey(t.s.hashCode())){
                 map.put(t.s.hashCode(), new ArrayList<>());
@@ -308,7 +315,7 @@ final class MethodCompiler {
             case CHAR:
                 return token.s.toCharArray()[0];
             case IDENTIFIER:
-                return CompilerUtil.getEnumOrdinal(type, token.s);
+                return CompilerUtil.getEnumOrdinal(compiler, type, token.s);
             case STRING:
                 return token.s.hashCode();
         }
@@ -733,12 +740,12 @@ final class MethodCompiler {
                 code.addNew(call.clazz);
                 code.add(Opcode.DUP);
                 for(AST.Calc calc:call.argTypes) compileCalc(calc, false);
-                code.addInvokespecial(call.clazz, "<init>", CompilerUtil.signatureToDesc(call.signature, "void"));
+                code.addInvokespecial(call.clazz, "<init>", CompilerUtil.signatureToDesc(compiler, call.signature, "void"));
             }else if(call.statik){
-                code.addInvokestatic(call.clazz, call.name, CompilerUtil.signatureToDesc(call.signature, call.type));
+                code.addInvokestatic(call.clazz, call.name, CompilerUtil.signatureToDesc(compiler, call.signature, call.type));
                 if(call.cast != null) code.addCheckcast(call.cast);
             }else{
-                code.addInvokevirtual(call.clazz, call.name, CompilerUtil.signatureToDesc(call.signature, call.type));
+                code.addInvokevirtual(call.clazz, call.name, CompilerUtil.signatureToDesc(compiler, call.signature, call.type));
                 if(call.cast != null) code.addCheckcast(call.cast);
             }
         }
@@ -1386,14 +1393,8 @@ final class MethodCompiler {
         }
     }
 
-    static MethodCompiler getInstance(){
-        if(INSTANCE == null) INSTANCE = new MethodCompiler();
-
-        return INSTANCE;
-    }
-
-    static MethodInfo compileMethod(KtjInterface clazz, String clazzName, ConstPool cp, KtjMethod method, String desc){
-        String name = desc.split("%", 2)[0];
+    static MethodInfo compileMethod(Compiler compiler, KtjInterface clazz, String clazzName, ConstPool cp, KtjMethod method, String desc){
+        String name = compiler.types.signature(desc).name;
         StringBuilder descBuilder = new StringBuilder("(");
 
         for(KtjMethod.Parameter p:method.parameter) descBuilder.append(CompilerUtil.toDesc(clazz.correctType(p.type)));
@@ -1407,12 +1408,8 @@ final class MethodCompiler {
         if(!method.isAbstract()){
             Bytecode code = new Bytecode(cp);
 
-            String clinitValues = "";
-            if(name.equals("<clinit>")) clinitValues = ((KtjClass) clazz).clinitValues();
-
-            getInstance().compileCode(code, clinitValues+";"+method.code, clazz, clazzName, method, name.endsWith("init>"), cp);
+            new MethodCompiler(compiler).compileCode(code, body(clazz, method, name), clazz, clazzName, method, name.endsWith("init>"), cp);
 
-            code.setMaxLocals(code.getMaxLocals() + method.getLocals() + 5);
             code.setMaxStack(code.getMaxStack() * 2 + 5);
 
             mInfo.setCodeAttribute(code.toCodeAttribute());
@@ -1420,4 +1417,35 @@ final class MethodCompiler {
 
         return mInfo;
     }
+
+    /** parses the body of the method, like it is done while compiling, without generating bytecode */
+    static void checkMethod(Compiler compiler, KtjInterface clazz, String clazzName, KtjMethod method, String desc){
+        if(method.isAbstract()) return;
+
+        String name = compiler.types.signature(desc).name;
+        SyntacticParser parser = new SyntacticParser(compiler);
+
+        if(method instanceof KtjConstructor && ((KtjConstructor) method).superCall != null) parser.parseAst(clazzName, true, method, ((KtjConstructor) method).superCall);
+        parser.parseAst(clazzName, name.endsWith("init>"), method, body(clazz, method, name));
+    }
+
+    private static TokenSlice body(KtjInterface clazz, KtjMethod method, String name){
+        if(name.equals("<clinit>")) return withInitValues((KtjClass) clazz, true, method.code);
+        if(method instanceof KtjConstructor) return withInitValues((KtjClass) clazz, false, method.code);
+        return method.code;
+    }
+
+    private static TokenSlice withInitValues(KtjClass clazz, boolean statik, TokenSlice code){
+        TokenSlice.Builder builder = null;
+
+        for(String name:clazz.fields.keySet()){
+            KtjField field = clazz.fields.get(name);
+            if(field.initValue == null || field.modifier.statik != statik) continue;
+
+            if(builder == null) builder = new TokenSlice.Builder(field.initValue.stream.source);
+            builder.assign(name, field.initValue, field.line);
+        }
+
+        return builder == null ? code : builder.add(code).build();
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+/**
+ * A method name with its parameter types, written by the compiler as a string like "name%int%java.lang.String", interned by a {@link TypeTable}.
+ */
+final class MethodSig{
+
+    final String name;
+    final TypeRef[] parameters;
+    /** the parameter types separated by '%', like calls store their signature */
+    final String parameterList;
+    /** the jvm descriptor of the parameters without the return type, e.g. "(ILjava/lang/String;)" */
+    final String parameterDescriptor;
+    private final String signature;
+
+    MethodSig(String signature, String name, TypeRef[] parameters){
+        this.signature = signature;
+        this.name = name;
+        this.parameters = parameters;
+        parameterList = name.length() == signature.length() ? "" : signature.substring(name.length() + 1);
+
+        StringBuilder descriptor = new StringBuilder("(");
+        for(TypeRef parameter:parameters) descriptor.append(parameter.descriptor);
+        parameterDescriptor = descriptor.append(")").toString();
+    }
+
+    String descriptor(String returnType){
+        return parameterDescriptor+TypeRef.descriptor(returnType);
+    }
+
+    /** @return the signature like the compiler writes it as a string */
+    @Override
+    public String toString(){
+        return signature;
+    }
+}
@@ -17,143 +17,84 @@
 package com.github.ktj.compiler;
 
 import com.github.ktj.lang.KtjMethod;
-import javassist.bytecode.Bytecode;
-import javassist.bytecode.Opcode;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
+/**
+ * Assigns the local variable slots of a method. Variables are found by name, the latest variable with a name shadows earlier ones,
+ * and the slots of a scope are reused after it is cleared.
+ */
 final class OperandStack {
 
-    private static class MatchedList<Key, Value> {
-
-        private final ArrayList<Key> keyList;
-        private final ArrayList<Value> valueList;
-
-        public MatchedList(){
-            keyList = new ArrayList<>();
-            valueList = new ArrayList<>();
-        }
-
-        public void add(Key key, Value value){
-            keyList.add(key);
-            valueList.add(value);
-        }
-
-        public Key getKey(Value value){
-            if(!valueList.contains(value))
-                return null;
-            return keyList.get(valueList.indexOf(value));
-        }
-
-        public Key getKey(int n){
-            if(n < 0 || n >= size())
-                return null;
-            return keyList.get(n);
-        }
-
-        public boolean hasKey(Key key){
-            return keyList.contains(key);
-        }
-
-        public Value getValue(Key key){
-            if(!keyList.contains(key))
-                return null;
-            return valueList.get(keyList.indexOf(key));
-        }
-
-        public Value getValue(int n){
-            if(n < 0 || n >= size())
-                return null;
-            return valueList.get(n);
-        }
-
-        public boolean hasValue(Value value){
-            return valueList.contains(value);
-        }
-
-        public ArrayList<Key> getKeyList(){
-            return keyList;
-        }
-
-        public ArrayList<Value> getValueList(){
-            return valueList;
-        }
-
-        public void remove(int n){
-            if(keyList.size() >= n && n >= 0){
-                keyList.remove(n);
-                valueList.remove(n);
-            }
-        }
-
-        public int size(){
-            return keyList.size();
-        }
-
-        public static <First, Second> MatchedList<First, Second> of(First[] firsts, Second[] seconds) throws RuntimeException{
-            assert firsts != null;
-            assert seconds != null;
-            assert firsts.length == seconds.length;
+    private String[] names = new String[8];
+    private int[] slots = new int[8];
+    /** the index of the variable which is shadowed by the variable at the same index, or -1 */
+    private int[] shadowed = new int[8];
+    private int variables = 0;
 
-            MatchedList<First, Second> matchedList = new MatchedList<>();
+    /** the index of the latest variable by name */
+    private final HashMap<String, Integer> latest = new HashMap<>();
+    /** the number of variables when each open scope was created */
+    private int[] scopes = new int[8];
+    private int depth = 0;
 
-            for(int i = 0;i < firsts.length;i++)
-                matchedList.add(firsts[i], seconds[i]);
-
-            return matchedList;
-        }
-
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder("{ ");
-
-            for(int i = 0;i < keyList.size();i++)
-                sb.append("(").append(keyList.get(i)).append(",").append(valueList.get(i)).append("), ");
-
-            return sb.deleteCharAt(sb.length() - 2).append("}").toString();
-        }
-    }
-
-    private final MatchedList<String, Integer> stack;
-    private final ArrayList<Integer> scopes = new ArrayList<>();
-    private int size;
+    private int size = 0;
+    private int maxSize = 0;
 
     OperandStack(boolean statik){
-        stack = new MatchedList<>();
-        size = 0;
-
         if(!statik) push("this", 1);
     }
 
+    /** @param length 2 for long and double, 1 for everything else */
     int push(String name, int length){
-        stack.add(name, size);
+        if(variables == names.length){
+            names = Arrays.copyOf(names, variables * 2);
+            slots = Arrays.copyOf(slots, variables * 2);
+            shadowed = Arrays.copyOf(shadowed, variables * 2);
+        }
+
+        Integer previous = latest.put(name, variables);
+        names[variables] = name;
+        slots[variables] = size;
+        shadowed[variables] = previous == null ? -1 : previous;
+        variables++;
+
         size += length;
+        maxSize = Math.max(maxSize, size);
         return size - length;
     }
 
     String pop(){
-        String temp = stack.getKey(stack.size() - 1);
-        int length = stack.getValue(stack.size() - 1);
-        length -= stack.getValue(stack.size() - 2);
-        stack.remove(stack.size() - 1);
-        size -= length;
-        return temp;
+        variables--;
+        String name = names[variables];
+
+        if(shadowed[variables] == -1) latest.remove(name);
+        else latest.put(name, shadowed[variables]);
+
+        size = slots[variables];
+        names[variables] = null;
+        return name;
     }
 
     void clearScope(){
-        while (size > scopes.get(scopes.size() - 1)) pop();
-        scopes.remove(scopes.size() - 1);
+        depth--;
+        while (variables > scopes[depth]) pop();
     }
 
     void newScope(){
-        scopes.add(size);
+        if(depth == scopes.length) scopes = Arrays.copyOf(scopes, depth * 2);
+        scopes[depth++] = variables;
     }
 
     int get(String name){
-        if(!stack.hasKey(name))
-            return -1;
+        Integer variable = latest.get(name);
+        return variable == null ? -1 : slots[variable];
+    }
 
-        return stack.getValue(name);
+    /** @return the number of slots the method needs for its local variables */
+    int getMaxLocals(){
+        return maxSize;
     }
 
     static OperandStack forMethod(KtjMethod method){
@@ -164,4 +105,4 @@ final class OperandStack {
 
         return os;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import com.github.ktj.bytecode.AccessFlag;
+import com.github.ktj.lang.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the parsed classes of every source file in a folder, keyed by a hash of the compiler version, the location and the content of the file.
+ * Method bodies are stored as tokens, so a cached file is neither lexed nor parsed again.
+ * Missing, outdated or corrupted entries are ignored and the file is parsed again.
+ */
+final class ParseCache{
+
+    /** has to be changed whenever the parser or the format of the entries changes */
+    private static final String VERSION = "0.9.1-2";
+
+    private static final AccessFlag[] ACCESS_FLAGS = AccessFlag.values();
+    private static final Token.Type[] TOKEN_TYPES = Token.Type.values();
+
+    private static final int CLASS = 0, OBJECT = 1, INTERFACE = 2, DATA = 3, TYPE = 4, FIELD = 5, METHOD = 6, CONSTRUCTOR = 7;
+
+    private final File folder;
+
+    ParseCache(File folder){
+        this.folder = folder;
+    }
+
+    HashMap<String, Compilable> parseFile(File file, String givenPath){
+        byte[] content;
+        File entry;
+
+        try{
+            content = Files.readAllBytes(file.toPath());
+            entry = new File(folder, key(content, file, givenPath) + ".ktjc");
+        }catch(IOException ignored){
+            return new Parser().parseFile(file, givenPath);
+        }
+
+        // decoded like the Lexer does, so the tokens of the file can refer to it instead of storing it again
+        CharBuffer source = Charset.defaultCharset().decode(ByteBuffer.wrap(content));
+
+        if(entry.isFile()){
+            HashMap<String, Compilable> classes = read(entry, source.array());
+            if(classes != null) return classes;
+        }
+
+        //the content which was hashed is parsed, so the entry matches its key even if the file changes in the meantime
+        HashMap<String, Compilable> classes = new Parser().parseFile(file, givenPath, source);
+        write(entry, classes, source);
+        return classes;
+    }
+
+    /** @return the classes of the entry or null if it is unreadable */
+    static HashMap<String, Compilable> read(File entry, char[] source){
+        try{
+            byte[] bytes = Files.readAllBytes(entry.toPath());
+            if(bytes.length < 8) return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 8);
+            if(ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != crc.getValue()) return null;
+
+            return new Input(bytes, bytes.length - 8, source).classes();
+        }catch(IOException | RuntimeException ignored){
+            return null;
+        }
+    }
+
+    /** writes the entry to a temporary file first, so that other compilers never read a partly written entry */
+    private void write(File entry, HashMap<String, Compilable> classes, CharBuffer source){
+        File temp = null;
+
+        try{
+            Output out = new Output(source);
+            out.classes(classes);
+
+            CRC32 crc = new CRC32();
+            crc.update(out.bytes, 0, out.size);
+            long checksum = crc.getValue();
+            for(int i = 56;i >= 0;i -= 8) out.write((int) (checksum >>> i));
+
+            temp = File.createTempFile(entry.getName(), null, folder);
+            try(FileOutputStream fos = new FileOutputStream(temp)){
+                fos.write(out.bytes, 0, out.size);
+            }
+            Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }catch(IOException ignored){
+            if(temp != null) temp.delete();
+        }
+    }
+
+    private static String key(byte[] content, File file, String givenPath){
+        return CompilerUtil.hash((VERSION + "\n" + Charset.defaultCharset().name() + "\n" + new File(givenPath).getAbsolutePath() + "\n" + file.getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8), content);
+    }
+
+    /**
+     * Writes the classes of one file. Strings, token streams and the uses, statics and generic types, which are shared by the classes of a file, are written once and referenced by their index afterwards.
+     */
+    private static final class Output{
+
+        private final CharBuffer source;
+        private final HashMap<String, Integer> strings = new HashMap<>();
+        private final IdentityHashMap<Object, Integer> shared = new IdentityHashMap<>();
+        private byte[] bytes = new byte[4096];
+        private int size = 0;
+
+        Output(CharBuffer source){
+            this.source = source;
+        }
+
+        void classes(HashMap<String, Compilable> classes) throws IOException{
+            string(VERSION);
+            number(classes.size());
+            for(Map.Entry<String, Compilable> entry:classes.entrySet()){
+                string(entry.getKey());
+                compilable(entry.getValue());
+            }
+        }
+
+        private void compilable(Compilable c) throws IOException{
+            if(c instanceof KtjObject) write(OBJECT);
+            else if(c instanceof KtjClass) write(CLASS);
+            else if(c instanceof KtjInterface) write(INTERFACE);
+            else if(c instanceof KtjDataClass) write(DATA);
+            else if(c instanceof KtjTypeClass) write(TYPE);
+            else if(c instanceof KtjField) write(FIELD);
+            else if(c instanceof KtjConstructor) write(CONSTRUCTOR);
+            else if(c instanceof KtjMethod) write(METHOD);
+            else throw new IOException("Unknown declaration "+c.getClass().getName());
+
+            modifier(c.modifier);
+            generics(c.genericTypes);
+            uses(c.uses);
+            statics(c.statics);
+            string(c.file);
+            number(c.line);
+
+            if(c instanceof KtjInterface){
+                KtjInterface i = (KtjInterface) c;
+                number(i.methods.size());
+                for(Map.Entry<String, KtjMethod> method:i.methods.entrySet()){
+                    string(method.getKey());
+                    compilable(method.getValue());
+                }
+            }
+            if(c instanceof KtjClass){
+                KtjClass clazz = (KtjClass) c;
+                fields(clazz.fields);
+                strings(clazz.interfaces);
+                string(clazz.superclass);
+            }else if(c instanceof KtjDataClass) fields(((KtjDataClass) c).fields);
+            else if(c instanceof KtjTypeClass) strings(((KtjTypeClass) c).values);
+            else if(c instanceof KtjField){
+                string(((KtjField) c).type);
+                slice(((KtjField) c).initValue);
+            }else if(c instanceof KtjMethod){
+                KtjMethod method = (KtjMethod) c;
+                string(method.returnType);
+                slice(method.code);
+                number(method.parameter.length);
+                for(KtjMethod.Parameter p:method.parameter){
+                    write(p.constant ? 1 : 0);
+                    string(p.type);
+                    string(p.name);
+                }
+                if(c instanceof KtjConstructor) slice(((KtjConstructor) c).superCall);
+            }
+        }
+
+        private void modifier(Modifier m){
+            write(m.accessFlag.ordinal());
+            number((m.finaly ? 1 : 0) | (m.constant ? 2 : 0) | (m.abstrakt ? 4 : 0) | (m.synchronised ? 8 : 0) | (m.statik ? 16 : 0)
+                    | (m.volatil ? 32 : 0) | (m.transint ? 64 : 0) | (m.strict ? 128 : 0) | (m.natife ? 256 : 0));
+        }
+
+        private void fields(Map<String, KtjField> fields) throws IOException{
+            number(fields.size());
+            for(Map.Entry<String, KtjField> field:fields.entrySet()){
+                string(field.getKey());
+                compilable(field.getValue());
+            }
+        }
+
+        private void generics(ArrayList<GenericType> generics){
+            if(!reference(generics)) return;
+
+            number(generics.size());
+            for(GenericType type:generics){
+                string(type.name);
+                string(type.type);
+            }
+        }
+
+        private void uses(HashMap<String, String> uses){
+            if(!reference(uses)) return;
+
+            number(uses.size());
+            for(Map.Entry<String, String> use:uses.entrySet()){
+                string(use.getKey());
+                string(use.getValue());
+            }
+        }
+
+        private void statics(ArrayList<String> statics){
+            if(!reference(statics)) return;
+
+            number(statics.size());
+            for(String s:statics) string(s);
+        }
+
+        private void slice(TokenSlice slice){
+            if(slice == null){
+                write(0);
+                return;
+            }
+
+            write(1);
+            stream(slice.stream);
+            number(slice.from);
+            number(slice.to);
+        }
+
+        private void stream(TokenStream stream){
+            if(!reference(stream)) return;
+
+            if(reference(stream.source)){
+                if(isSource(stream.source)) write(0);
+                else{
+                    write(1);
+                    string(new String(stream.source));
+                }
+            }
+
+            number(stream.size());
+            for(int i = 0;i < stream.size();i++){
+                write(stream.type(i).ordinal());
+                number(stream.symbol(i));
+                number(stream.length(i));
+                number(stream.line(i));
+
+                if(stream.length(i) > 0) number(stream.start(i));
+                else if(stream.symbol(i) == 0) string(stream.get(i).s);
+            }
+        }
+
+        private void strings(String[] strings){
+            number(strings.length);
+            for(String s:strings) string(s);
+        }
+
+        /** @return if the object has to be written, because it is not null and not written before */
+        private boolean reference(Object o){
+            if(o == null){
+                number(0);
+                return false;
+            }
+
+            Integer index = shared.get(o);
+            if(index != null){
+                number(index);
+                return false;
+            }
+
+            shared.put(o, shared.size() + 1);
+            number(shared.size());
+            return true;
+        }
+
+        private void string(String s){
+            if(s == null){
+                number(0);
+                return;
+            }
+
+            Integer index = strings.get(s);
+            if(index != null) number(index);
+            else{
+                strings.put(s, strings.size() + 1);
+                number(strings.size());
+                byte[] utf = s.getBytes(StandardCharsets.UTF_8);
+                number(utf.length);
+                for(byte b:utf) write(b);
+            }
+        }
+
+        private boolean isSource(char[] chars){
+            return chars == source.array();
+        }
+
+        private void number(int value){
+            while((value & ~0x7F) != 0){
+                write(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void write(int b){
+            if(size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) b;
+        }
+    }
+
+    private static final class Input{
+
+        private final byte[] bytes;
+        private final int end;
+        private final char[] source;
+        private final ArrayList<String> strings = new ArrayList<>();
+        private final ArrayList<Object> shared = new ArrayList<>();
+        private int position = 0;
+
+        Input(byte[] bytes, int end, char[] source){
+            this.bytes = bytes;
+            this.end = end;
+            this.source = source;
+        }
+
+        HashMap<String, Compilable> classes() throws IOException{
+            if(!VERSION.equals(string())) throw new IOException("Outdated entry");
+
+            HashMap<String, Compilable> classes = new LinkedHashMap<>();
+            for(int i = number();i > 0;i--) classes.put(string(), compilable());
+            return classes;
+        }
+
+        private Compilable compilable() throws IOException{
+            int kind = read();
+            Modifier modifier = modifier();
+            ArrayList<GenericType> generics = generics();
+            HashMap<String, String> uses = uses();
+            ArrayList<String> statics = statics();
+            String file = string();
+            int line = number();
+
+            switch(kind){
+                case CLASS:
+                case OBJECT:
+                case INTERFACE:{
+                    KtjInterface i = kind == CLASS ? new KtjClass(modifier, generics, uses, statics, file, line) : kind == OBJECT ? new KtjObject(modifier, uses, statics, file, line) : new KtjInterface(modifier, generics, uses, statics, file, line);
+                    for(int j = number();j > 0;j--) i.addMethod(string(), (KtjMethod) compilable());
+
+                    if(i instanceof KtjClass){
+                        for(int j = number();j > 0;j--) ((KtjClass) i).fields.put(string(), (KtjField) compilable());
+                        ((KtjClass) i).interfaces = strings();
+                        ((KtjClass) i).superclass = string();
+                    }
+                    return i;
+                }
+                case DATA:{
+                    KtjDataClass data = new KtjDataClass(modifier, uses, statics, file, line);
+                    for(int j = number();j > 0;j--) data.fields.put(string(), (KtjField) compilable());
+                    return data;
+                }
+                case TYPE:
+                    return new KtjTypeClass(modifier, strings(), uses, statics, file, line);
+                case FIELD:
+                    return new KtjField(modifier, string(), generics, slice(), uses, statics, file, line);
+                case METHOD:
+                case CONSTRUCTOR:{
+                    String returnType = string();
+                    TokenSlice code = slice();
+                    KtjMethod.Parameter[] parameter = new KtjMethod.Parameter[number()];
+                    for(int j = 0;j < parameter.length;j++){
+                        boolean constant = read() != 0;
+                        String type = string();
+                        parameter[j] = new KtjMethod.Parameter(constant, type, string());
+                    }
+
+                    if(kind == METHOD) return new KtjMethod(modifier, generics, returnType, code, parameter, uses, statics, file, line);
+                    return new KtjConstructor(modifier, generics, returnType, slice(), code, parameter, uses, statics, file, line);
+                }
+                default:
+                    throw new IOException("Unknown declaration "+kind);
+            }
+        }
+
+        private Modifier modifier() throws IOException{
+            Modifier m = new Modifier(ACCESS_FLAGS[read()]);
+            int flags = number();
+            m.finaly = (flags & 1) != 0;
+            m.constant = (flags & 2) != 0;
+            m.abstrakt = (flags & 4) != 0;
+            m.synchronised = (flags & 8) != 0;
+            m.statik = (flags & 16) != 0;
+            m.volatil = (flags & 32) != 0;
+            m.transint = (flags & 64) != 0;
+            m.strict = (flags & 128) != 0;
+            m.natife = (flags & 256) != 0;
+            return m;
+        }
+
+        @SuppressWarnings("unchecked")
+        private ArrayList<GenericType> generics() throws IOException{
+            int index = number();
+            if(index <= shared.size()) return index == 0 ? null : (ArrayList<GenericType>) shared.get(index - 1);
+
+            ArrayList<GenericType> generics = new ArrayList<>();
+            shared.add(generics);
+            for(int i = number();i > 0;i--) generics.add(new GenericType(string(), string()));
+            return generics;
+        }
+
+        @SuppressWarnings("unchecked")
+        private HashMap<String, String> uses() throws IOException{
+            int index = number();
+            if(index <= shared.size()) return index == 0 ? null : (HashMap<String, String>) shared.get(index - 1);
+
+            HashMap<String, String> uses = new HashMap<>();
+            shared.add(uses);
+            for(int i = number();i > 0;i--) uses.put(string(), string());
+            return uses;
+        }
+
+        @SuppressWarnings("unchecked")
+        private ArrayList<String> statics() throws IOException{
+            int index = number();
+            if(index <= shared.size()) return index == 0 ? null : (ArrayList<String>) shared.get(index - 1);
+
+            ArrayList<String> statics = new ArrayList<>();
+            shared.add(statics);
+            for(int i = number();i > 0;i--) statics.add(string());
+            return statics;
+        }
+
+        private TokenSlice slice() throws IOException{
+            if(read() == 0) return null;
+
+            TokenStream stream = stream();
+            int from = number(), to = number();
+            if(from < 0 || to > stream.size() || from > to) throw new IOException("Illegal slice");
+            return new TokenSlice(stream, from, to);
+        }
+
+        private TokenStream stream() throws IOException{
+            int index = number();
+            if(index <= shared.size()){
+                if(index == 0) throw new IOException("Missing token stream");
+                return (TokenStream) shared.get(index - 1);
+            }
+            int position = shared.size();
+            shared.add(null);
+
+            char[] source;
+            index = number();
+            if(index <= shared.size()){
+                if(index == 0) throw new IOException("Missing source");
+                source = (char[]) shared.get(index - 1);
+            }else{
+                source = read() == 0 ? this.source : string().toCharArray();
+                shared.add(source);
+            }
+
+            int size = number();
+            TokenStream stream = new TokenStream(source, size);
+            shared.set(position, stream);
+
+            for(int i = 0;i < size;i++){
+                Token.Type type = TOKEN_TYPES[read()];
+                int symbol = number(), length = number(), line = number();
+
+                if(length > 0) stream.add(type, symbol, number(), length, line);
+                else if(symbol == 0) stream.addSynthesized(new Token(string(), type), line);
+                else stream.add(type, symbol, 0, 0, line);
+            }
+            return stream;
+        }
+
+        private String[] strings() throws IOException{
+            String[] strings = new String[number()];
+            for(int i = 0;i < strings.length;i++) strings[i] = string();
+            return strings;
+        }
+
+        private String string() throws IOException{
+            int index = number();
+            if(index == 0) return null;
+            if(index <= strings.size()) return strings.get(index - 1);
+
+            int length = number();
+            if(length < 0 || length > end - position) throw new IOException("Illegal string");
+
+            String s = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            strings.add(s);
+            return s;
+        }
+
+        private int number() throws IOException{
+            int value = 0;
+            for(int shift = 0;shift < 32;shift += 7){
+                int b = read();
+                value |= (b & 0x7F) << shift;
+                if((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed number");
+        }
+
+        private int read() throws IOException{
+            if(position >= end) throw new IOException("Unexpected end of entry");
+            return bytes[position++] & 0xFF;
+        }
+    }
+}
@@ -20,7 +20,9 @@ import com.github.ktj.bytecode.AccessFlag;
 import com.github.ktj.lang.*;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
 
 final class Parser {
@@ -38,22 +40,56 @@ final class Parser {
         if(!file.exists()) throw new IllegalArgumentException("File "+file.getPath()+" did not exist");
 
         try{
-            if(0 < file.getPath().length() - file.getName().length() - 1) path = file.getPath().substring(0, file.getPath().length() - file.getName().length() - 1);
-            else path = "";
-            if(path.startsWith(givenPath.replace("/", "\\"))) path = path.substring(givenPath.length());
-            else if(givenPath.endsWith(".ktj")) path = "";
-            name = file.getName().substring(0, file.getName().length() - 4);
-            classes = new HashMap<>();
-            uses = new HashMap<>();
-            statics = new ArrayList<>();
-            th = Lexer.lex(file);
-            statik = new KtjObject(new Modifier(AccessFlag.ACC_PUBLIC), uses, statics, getFileName(), 0);
-        }catch(FileNotFoundException ignored){
+            setName(file, givenPath);
+            th = Lexer.lex(file, getFileName());
+        }catch(NoSuchFileException ignored){
             throw new IllegalArgumentException("Unable to find "+file.getPath());
+        }catch(IOException ignored){
+            throw new IllegalArgumentException("Unable to read "+file.getPath());
         }catch(IndexOutOfBoundsException ignored){
             throw new IllegalArgumentException("Illegal argument " + file.getPath());
         }
 
+        return parse();
+    }
+
+    /** parses the content of the file, which was already read from disk */
+    HashMap<String, Compilable> parseFile(File file, String givenPath, CharBuffer source) throws IllegalArgumentException{
+        try{
+            setName(file, givenPath);
+        }catch(IndexOutOfBoundsException ignored){
+            throw new IllegalArgumentException("Illegal argument " + file.getPath());
+        }
+        th = Lexer.lex(source, getFileName());
+
+        return parse();
+    }
+
+    /** parses source code which is not read from disk, file is its path relative to the source root like p/A.ktj */
+    HashMap<String, Compilable> parseSource(String file, String source) throws IllegalArgumentException{
+        if(file.length() < 5) throw new IllegalArgumentException("Illegal argument " + file);
+
+        int slash = file.lastIndexOf('/');
+        path = slash == -1 ? "" : file.substring(0, slash);
+        name = file.substring(slash + 1, file.length() - 4);
+        th = Lexer.lex(getFileName(), source);
+
+        return parse();
+    }
+
+    private void setName(File file, String givenPath){
+        File root = new File(givenPath);
+        if(root.isDirectory() && file.getAbsoluteFile().getParentFile() != null) path = root.getAbsoluteFile().toPath().relativize(file.getAbsoluteFile().getParentFile().toPath()).toString();
+        else path = "";
+        name = file.getName().substring(0, file.getName().length() - 4);
+    }
+
+    private HashMap<String, Compilable> parse(){
+        classes = new LinkedHashMap<>();
+        uses = new HashMap<>();
+        statics = new ArrayList<>();
+        statik = new KtjObject(new Modifier(AccessFlag.ACC_PUBLIC), uses, statics, getFileName(), 0);
+
         uses.put("Object", "java.lang.Object");
         uses.put("String", "java.lang.String");
         statik.superclass = "Object";
@@ -88,7 +124,7 @@ final class Parser {
             if(uses.containsKey(name)) err(name+" is already defined");
             uses.put(name, CompilerUtil.validateClassName((path.isEmpty() ? "" : path+".")+name));
         }else{
-            HashMap<String, Compilable> help = new HashMap<>();
+            HashMap<String, Compilable> help = new LinkedHashMap<>();
 
             for(String clazz: classes.keySet()){
                 help.put(CompilerUtil.validateClassName((path.isEmpty() ? "" : path+".")+name+"."+clazz), classes.get(clazz));
@@ -169,13 +205,11 @@ final class Parser {
 
     private void parseMain(){
         if(th.isNext("->")){
-            StringBuilder code = new StringBuilder();
-
-            while(th.hasNext() && !th.isEndOfStatement()) code.append(" ").append(th.next());
+            TokenSlice code = getStatement();
 
             Modifier mod = new Modifier(AccessFlag.ACC_PUBLIC);
             mod.statik = true;
-            addMethod("main%[String", new KtjMethod(mod, null, "void", code.toString(), new KtjMethod.Parameter[]{new KtjMethod.Parameter(false, "[String", "args")}, uses, statics, getFileName(), th.getLine()));
+            addMethod("main%[String", new KtjMethod(mod, null, "void", code, new KtjMethod.Parameter[]{new KtjMethod.Parameter(false, "[String", "args")}, uses, statics, getFileName(), th.getLine()));
             return;
         }
 
@@ -362,7 +396,7 @@ final class Parser {
         if(modifier.accessFlag == AccessFlag.ACC_PRIVATE) err("Illegal modifier private");
         if(!modifier.isValidForData()) err("illegal modifier");
 
-        String name = parseName();
+        String name = th.assertToken(Token.Type.IDENTIFIER).s;
         KtjDataClass clazz = new KtjDataClass(modifier, uses, statics, getFileName(), th.getLine());
 
         boolean constant = modifier.constant;
@@ -398,7 +432,7 @@ final class Parser {
         if(modifier.accessFlag == AccessFlag.ACC_PRIVATE) err("Illegal modifier private");
         if(!modifier.isValidForType()) err("illegal modifier");
 
-        String name = parseName();
+        String name = th.assertToken(Token.Type.IDENTIFIER).s;
 
         th.assertToken("=");
 
@@ -419,7 +453,7 @@ final class Parser {
         if(modifier.accessFlag == AccessFlag.ACC_PRIVATE) err("Illegal modifier private");
         if(!modifier.isValidForInterface()) err("illegal modifier");
 
-        String name = parseName();
+        String name = th.assertToken(Token.Type.IDENTIFIER).s;
         ArrayList<GenericType> generics = parseGenerics();
 
         th.assertToken("{");
@@ -438,14 +472,6 @@ final class Parser {
         err("Expected '}'");
     }
 
-    private String parseName(){
-        String name = th.assertToken(Token.Type.IDENTIFIER).s;
-
-        if(CompilerUtil.classExist(name)) err("Type Class "+name+" is already defined");
-
-        return name;
-    }
-
     private ArrayList<GenericType> parseGenerics(){
         ArrayList<GenericType> generics = new ArrayList<>();
 
@@ -494,17 +520,14 @@ final class Parser {
         if(!mod.isValidForField()) err("illegal modifier");
         if(Lexer.isOperator(name.toCharArray()[0])) err("illegal argument");
 
-        String initValue = null;
+        TokenSlice initValue = null;
 
         if(th.isNext("=")){
-            StringBuilder sb = new StringBuilder();
             th.assertHasNext();
 
-            while(!th.isEndOfStatement()) sb.append(th.next().s).append(" ");
-
-            if(sb.toString().trim().isEmpty()) err("Expected value");
+            initValue = getStatement();
 
-            initValue = sb.toString();
+            if(initValue.isEmpty()) err("Expected value");
         }
 
         if(mod.finaly && initValue == null) err("Expected init value for constant field "+name);
@@ -567,13 +590,15 @@ final class Parser {
         if(name.equals("<clinit>") && (!parameter.isEmpty() || mod.accessFlag != AccessFlag.ACC_PACKAGE_PRIVATE)) err("Method should not be static");
         if(name.equals("->")) err("illegal method name");
 
-        StringBuilder superConstructorCall = new StringBuilder();
+        TokenSlice superConstructorCall = null;
         if(th.isNext(":")){
             if(th.isNext(":")){
                 if(!name.equals("<init>")) err("illegal argument");
-                superConstructorCall.append(th.assertTokenTypes(Token.Type.IDENTIFIER)).append("(");
+                int from = th.mark() + 1;
+                th.assertTokenTypes(Token.Type.IDENTIFIER);
                 th.assertToken("(");
-                superConstructorCall.append(getInBracket()).append(")");
+                getInBracket();
+                superConstructorCall = th.slice(from, th.mark() + 1);
             }else th.last();
         }
 
@@ -583,72 +608,74 @@ final class Parser {
             addMethod(desc.toString(), new KtjMethod(mod, current != null ? current.genericTypes : null, type, null, parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), th.getLine()));
         }else if(th.isNext("{")){
             int _line = th.getLine();
-            String code = getInBracket();
+            TokenSlice code = getInBracket();
 
-            if(name.contains("<init>")) addMethod(desc.toString(), new KtjConstructor(mod, current != null ? current.genericTypes : null, type, superConstructorCall.toString(), code, parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
+            if(name.contains("<init>")) addMethod(desc.toString(), new KtjConstructor(mod, current != null ? current.genericTypes : null, type, superConstructorCall, code, parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
             else addMethod(desc.toString(), new KtjMethod(mod, current != null ? current.genericTypes : null, type, code, parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
         }else if(th.isNext(":")){
             if(parameter.isEmpty()) err("Expected parameter");
 
-            StringBuilder sb = new StringBuilder();
-            boolean last = false;
+            TokenSlice.Builder code = th.builder();
+            boolean first = true, last = false;
             int _line = th.getLine();
 
             while(th.isNext("(") && !last){
-                StringBuilder arg = new StringBuilder();
+                int line = th.getLine();
+                TokenSlice.Builder arg = th.builder();
+                boolean empty = true;
+
                 for (KtjMethod.Parameter value : parameter) {
                     th.assertToken(value.name);
                     if(!th.isNext(",")){
-                        if (!arg.toString().isEmpty()) arg.append("&&");
-                        arg.append(value.name);
+                        if (!empty) arg.add("&&", th.getLine());
+                        arg.add(th.current(), th.getLine());
+                        empty = false;
                         while (!th.isNext(",")){
-                            if (th.isNext("(")) arg.append(getInBracket());
-                            else arg.append(th.next().s);
+                            if (th.isNext("(")) arg.add("(", th.getLine()).add(getInBracket()).add(")", th.getLine());
+                            else arg.add(th.next(), th.getLine());
                         }
                     }
                 }
 
-                if(arg.toString().isEmpty()){
+                if(!first) code.add("else", line);
+                first = false;
+
+                code.add("if", line).add("(", line);
+                if(empty){
                     last = true;
-                    if(!sb.toString().isEmpty()) sb.append("else ");
-                    sb.append("if(true)");
-                }else{
-                    if(!sb.toString().isEmpty()) sb.append("else ");
-                    sb.append("if( ").append(arg).append(" )");
-                }
+                    code.add("true", line);
+                }else code.add(arg.build());
+                code.add(")", line);
 
                 switch(th.assertToken("{", "=", "->").s){
                     case "->":
-                        sb.append("->");
-                        while(!th.isEndOfStatement()) sb.append(" ").append(th.next().s);
-                        sb.append("\n");
+                        code.add("->", th.getLine()).add(getStatement());
+                        code.add(";", code.lastLine());
                         break;
                     case "=":
-                        sb.append("-> return ");
-                        while(!th.isEndOfStatement()) sb.append(" ").append(th.next().s);
-                        sb.append("\n");
+                        code.add("->", th.getLine()).add("return", th.getLine()).add(getStatement());
+                        code.add(";", code.lastLine());
                         break;
                     case "{":
-                        sb = new StringBuilder(getInBracket());
+                        code.add("{", th.getLine()).add(getInBracket()).add("}", th.getLine());
                         break;
                 }
             }
 
-            if(sb.toString().isEmpty()) err("Expected (");
+            if(first) err("Expected (");
             if(!last) err("Expected default");
 
-            if(name.contains("<init>")) addMethod(desc.toString(), new KtjConstructor(mod, current != null ? current.genericTypes : null, type, superConstructorCall.toString(), sb.toString(), parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
-            else addMethod(desc.toString(), new KtjMethod(mod, current != null ? current.genericTypes : null, type, sb.toString(), parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
+            if(name.contains("<init>")) addMethod(desc.toString(), new KtjConstructor(mod, current != null ? current.genericTypes : null, type, superConstructorCall, code.build(), parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
+            else addMethod(desc.toString(), new KtjMethod(mod, current != null ? current.genericTypes : null, type, code.build(), parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
         }else{
-            StringBuilder code = new StringBuilder();
+            TokenSlice code;
             int _line = th.getLine();
 
-            if(th.assertToken("=", "->").equals("=")) code.append("return");
+            if(th.assertToken("=", "->").equals("=")) code = th.builder().add("return", th.getLine()).add(getStatement()).build();
+            else code = getStatement();
 
-            while(th.hasNext() && !th.isEndOfStatement()) code.append(" ").append(th.next());
-
-            if(name.contains("<init>")) addMethod(desc.toString(), new KtjConstructor(mod, current != null ? current.genericTypes : null, type, superConstructorCall.toString(), code.toString(), parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
-            else addMethod(desc.toString(), new KtjMethod(mod, current != null ? current.genericTypes : null, type, code.toString(), parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
+            if(name.contains("<init>")) addMethod(desc.toString(), new KtjConstructor(mod, current != null ? current.genericTypes : null, type, superConstructorCall, code, parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
+            else addMethod(desc.toString(), new KtjMethod(mod, current != null ? current.genericTypes : null, type, code, parameter.toArray(new KtjMethod.Parameter[0]), uses, statics, getFileName(), _line));
         }
     }
 
@@ -672,7 +699,7 @@ final class Parser {
         }
     }
 
-    private String getInBracket(){
+    private TokenSlice getInBracket(){
         String openingBracket = th.current().s;
         String closingBracket;
         switch(openingBracket){
@@ -691,26 +718,30 @@ final class Parser {
             default:
                 throw new RuntimeException();
         }
-        StringBuilder sb = new StringBuilder();
-
-        int line = th.getLine();
+        int from = th.mark() + 1;
         int b = 1;
 
         while(b > 0 && th.hasNext()){
             th.next();
-            while(th.getLine() != line){
-                line++;
-                sb.append("\n");
-            }
             if(th.current().equals(openingBracket)) b++;
             else if(th.current().equals(closingBracket)) b--;
-            else if(th.current().s.split(closingBracket).length == th.current().s.length()) b -= th.current().s.length();
-            if(b > 0) sb.append(th.current()).append(" ");
+            else if(th.current().equals(Token.Type.OPERATOR) && th.current().s.replace(closingBracket, "").isEmpty()) b -= th.current().s.length();
         }
 
         if(b > 0) err("Expected "+closingBracket);
 
-        return sb.toString();
+        return th.slice(from, th.mark());
+    }
+
+    private TokenSlice getStatement(){
+        int from = th.mark() + 1, to = from;
+
+        while(th.hasNext() && !th.isEndOfStatement()){
+            th.next();
+            to = th.mark() + 1;
+        }
+
+        return th.slice(from, to);
     }
 
     private String getFileName(){
@@ -16,28 +16,37 @@
 
 package com.github.ktj.compiler;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 
 public class ParsingException extends RuntimeException{
 
-    private String file;
-    private int line;
+    /** the source file without the .ktj extension, relative to the source root, like p\A */
+    private final String file;
+    private final int line;
+    /** set by the compiler which threw the exception, in debug mode the stack trace of the compiler is shown too */
+    boolean debug;
 
     public ParsingException(String message, String file, int line){
         super(message);
-        this.file = file.replace(".", "\\");
+        this.file = file.replace("/", "\\");
         this.line = line;
     }
 
+    /** @return the path of the source file relative to the source root, like p/A.ktj */
+    public String getFile(){
+        return file.replace("\\", "/")+".ktj";
+    }
+
+    public int getLine(){
+        return line;
+    }
+
     @Override
     public StackTraceElement[] getStackTrace(){
-        String className = file;
-        if(file.contains("\\") && !new File(file+".ktj").exists()) file = file.substring(0, file.lastIndexOf("\\"));
-        StackTraceElement element = new StackTraceElement(className, "", file.substring(file.lastIndexOf("\\") + 1)+".ktj", line);
+        StackTraceElement element = new StackTraceElement(file, "", file.substring(file.lastIndexOf("\\") + 1)+".ktj", line);
 
-        if(!Compiler.Instance().debug) return new StackTraceElement[]{element};
+        if(!debug) return new StackTraceElement[]{element};
         else{
             ArrayList<StackTraceElement> stackTrace = new ArrayList<>();
             stackTrace.add(element);
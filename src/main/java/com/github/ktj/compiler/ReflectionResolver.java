@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Resolves classes by loading them into the compiler with {@link Class#forName(String)}, which also initializes them.
+ */
+final class ReflectionResolver implements SymbolResolver{
+
+    @Override
+    public ClassSymbol resolve(String name, SymbolCache symbols){
+        try{
+            return of(Class.forName(name));
+        }catch(ClassNotFoundException ignored){
+            return null;
+        }
+    }
+
+    static ClassSymbol of(Class<?> clazz){
+        TypeVariable<?>[] variables = clazz.getTypeParameters();
+        String[] typeParameters = new String[variables.length];
+        String[][] bounds = new String[variables.length][];
+        for(int i = 0;i < variables.length;i++){
+            typeParameters[i] = variables[i].getName();
+            bounds[i] = new String[variables[i].getBounds().length];
+            for(int j = 0;j < bounds[i].length;j++) bounds[i][j] = variables[i].getBounds()[j].getTypeName();
+        }
+
+        String[] enumConstants = new String[0];
+        if(clazz.isEnum()){
+            Object[] constants = clazz.getEnumConstants();
+            enumConstants = new String[constants.length];
+            for(int i = 0;i < constants.length;i++) enumConstants[i] = ((Enum<?>) constants[i]).name();
+        }
+
+        HashMap<String, List<ClassSymbol.MethodSymbol>> methods = new HashMap<>();
+        for(Method m:clazz.getMethods()){
+            Class<?>[] types = m.getParameterTypes();
+            Type[] genericTypes = m.getGenericParameterTypes();
+            String[] parameterTypes = new String[types.length];
+            String[] parameterVariables = new String[types.length];
+
+            for(int i = 0;i < types.length;i++){
+                parameterTypes[i] = adjustType(types[i].getTypeName());
+                if(genericTypes.length == types.length && genericTypes[i] instanceof TypeVariable<?>) parameterVariables[i] = ((TypeVariable<?>) genericTypes[i]).getName();
+            }
+
+            String returnVariable = m.getGenericReturnType() instanceof TypeVariable<?> ? ((TypeVariable<?>) m.getGenericReturnType()).getName() : null;
+            methods.computeIfAbsent(m.getName()+"%"+types.length, k -> new ArrayList<>()).add(new ClassSymbol.MethodSymbol(m.getDeclaringClass().getName(), m.getName(), parameterTypes, parameterVariables, m.getReturnType().getName(), returnVariable, m.getModifiers()));
+        }
+
+        HashMap<Integer, List<ClassSymbol.MethodSymbol>> constructors = new HashMap<>();
+        for(Constructor<?> c:clazz.getConstructors()){
+            String[] parameterTypes = new String[c.getParameterCount()];
+            for(int i = 0;i < parameterTypes.length;i++) parameterTypes[i] = adjustType(c.getParameterTypes()[i].getTypeName());
+            constructors.computeIfAbsent(parameterTypes.length, k -> new ArrayList<>()).add(new ClassSymbol.MethodSymbol(clazz.getName(), "<init>", parameterTypes, new String[parameterTypes.length], "void", null, c.getModifiers()));
+        }
+
+        HashMap<String, ClassSymbol.FieldSymbol> fields = new HashMap<>();
+        for(Field f:clazz.getFields()){
+            String variable = f.getGenericType() instanceof TypeVariable<?> ? ((TypeVariable<?>) f.getGenericType()).getName() : null;
+            fields.putIfAbsent(f.getName(), new ClassSymbol.FieldSymbol(f.getType().getName(), variable, f.getModifiers()));
+        }
+
+        String[] interfaces = new String[clazz.getInterfaces().length];
+        for(int i = 0;i < interfaces.length;i++) interfaces[i] = clazz.getInterfaces()[i].getName();
+
+        return new ClassSymbol(clazz.getName(), clazz.getModifiers(), clazz.isInterface(), clazz.isEnum(), clazz.getSuperclass() == null ? null : clazz.getSuperclass().getName(), interfaces, typeParameters, bounds, enumConstants, methods, constructors, fields);
+    }
+
+    private static String adjustType(String type){
+        if(!type.contains("[")) return type;
+
+        StringBuilder result = new StringBuilder(type.split("\\[")[0]);
+        for(int i=0;i<type.split("\\[").length - 1;i++)  result.insert(0, "[");
+        return result.toString();
+    }
+}
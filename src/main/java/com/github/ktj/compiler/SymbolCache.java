@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the symbols of classes from the classpath for one compilation, including classes which don't exist.
+ */
+final class SymbolCache{
+
+    private final SymbolResolver resolver;
+    private final ConcurrentHashMap<String, Optional<ClassSymbol>> classes = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    SymbolCache(SymbolResolver resolver){
+        this.resolver = resolver;
+    }
+
+    /** @return the symbol of the class or null if there is no such class */
+    ClassSymbol get(String name){
+        Optional<ClassSymbol> symbol = classes.get(name);
+
+        if(symbol != null) hits.incrementAndGet();
+        else{
+            misses.incrementAndGet();
+
+            //resolving looks up the supertypes through this cache, so it can't happen inside computeIfAbsent
+            symbol = Optional.ofNullable(resolver.resolve(name, this));
+            Optional<ClassSymbol> previous = classes.putIfAbsent(name, symbol);
+            if(previous != null) symbol = previous;
+        }
+
+        return symbol.orElse(null);
+    }
+
+    void close(){
+        resolver.close();
+    }
+
+    @Override
+    public String toString(){
+        int found = 0;
+        for(Optional<ClassSymbol> symbol:classes.values()) if(symbol.isPresent()) found++;
+
+        return "symbol cache: "+hits+" hits, "+misses+" misses, "+found+" classes loaded, "+(classes.size() - found)+" not found";
+    }
+}
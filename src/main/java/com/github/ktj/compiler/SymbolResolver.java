@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+/**
+ * Looks up the symbols of classes which are not compiled from kataja source.
+ */
+interface SymbolResolver{
+
+    /**
+     * @param symbols the cache to look up supertypes with
+     * @return the symbol of the class or null if there is no such class
+     */
+    ClassSymbol resolve(String name, SymbolCache symbols);
+
+    /** releases files opened while resolving, the resolver can still be used afterwards */
+    default void close(){}
+}
@@ -19,66 +19,149 @@ package com.github.ktj.compiler;
 import com.github.ktj.lang.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 final class SyntacticParser {
 
+    /**
+     * The variables of all open scopes in one table. A name maps to its innermost variable, which links to the variable it shadows,
+     * so closing a scope only touches the variables it added.
+     */
     private static final class Scope{
-        public final Scope last;
-        private final HashMap<String, String> vars = new HashMap<>();
-        private final ArrayList<String> constants = new ArrayList<>();
+        private String[] names = new String[16];
+        private String[] types = new String[16];
+        private boolean[] constants = new boolean[16];
+        /** the index of the variable with the same name in an outer scope, or -1 */
+        private int[] shadowed = new int[16];
+        private int size;
+
+        /** the number of variables when each open scope was created */
+        private int[] marks = new int[8];
+        private int depth;
+
+        /** open addressed table from name to the index of its innermost variable, -1 if it is not defined */
+        private String[] keys = new String[32];
+        private int[] latest = new int[32];
+        private int used;
+
+        void reset(String type, KtjMethod method){
+            Arrays.fill(names, 0, size, null);
+            Arrays.fill(types, 0, size, null);
+            Arrays.fill(keys, null);
+            size = depth = used = 0;
+
+            add("this", type, false);
+            add("null", "java.lang.Object", false);
+            for(int i = 0;i < method.parameter.length;i++){
+                if(getType(method.parameter[i].name) != null) throw new RuntimeException(method.parameter[i].name+" is already defined at "+method.file+":"+method.line);
+                add(method.parameter[i].name, method.correctType(method.parameter[i].type), method.parameter[i].constant);
+            }
+        }
 
-        Scope(Scope current){
-            last = current;
+        void push(){
+            if(depth == marks.length) marks = Arrays.copyOf(marks, depth * 2);
+            marks[depth++] = size;
         }
 
-        Scope(String type, KtjMethod method){
-            last = null;
-            vars.put("this", type);
-            vars.put("null", "java.lang.Object");
-            for(int i = 0;i < method.parameter.length;i++){
-                if(vars.containsKey(method.parameter[i].name)) throw new RuntimeException(method.parameter[i].name+" is already defined at "+method.file+":"+method.line);
-                vars.put(method.parameter[i].name, method.correctType(method.parameter[i].type));
-                if(method.parameter[i].constant) constants.add(method.parameter[i].name);
+        void pop(){
+            depth--;
+            while(size > marks[depth]){
+                size--;
+                set(names[size], shadowed[size]);
+                names[size] = null;
+                types[size] = null;
             }
         }
 
         String getType(String name){
-            if(vars.containsKey(name))
-                return vars.get(name);
-
-            return last == null ? null : last.getType(name);
+            int variable = find(name);
+            return variable == -1 ? null : types[variable];
         }
 
         boolean isConst(String name){
-            if(constants.contains(name)) return true;
-
-            return last != null && last.isConst(name);
+            for(int variable = find(name);variable != -1;variable = shadowed[variable]) if(constants[variable]) return true;
+            return false;
         }
 
         void add(String name, String type, boolean constant){
-            if(!vars.containsKey(name))
-                vars.put(name, type);
-            if(constant)
-                constants.add(name);
+            int variable = find(name);
+
+            if(variable != -1 && variable >= (depth == 0 ? 0 : marks[depth - 1])){
+                constants[variable] |= constant;
+                return;
+            }
+
+            if(size == names.length){
+                names = Arrays.copyOf(names, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+                constants = Arrays.copyOf(constants, size * 2);
+                shadowed = Arrays.copyOf(shadowed, size * 2);
+            }
+
+            names[size] = name;
+            types[size] = type;
+            constants[size] = constant;
+            shadowed[size] = variable;
+            set(name, size++);
+        }
+
+        private int find(String name){
+            int slot = slot(keys, name);
+            return keys[slot] == null ? -1 : latest[slot];
+        }
+
+        private void set(String name, int variable){
+            int slot = slot(keys, name);
+            latest[slot] = variable;
+
+            if(keys[slot] == null){
+                keys[slot] = name;
+                if(++used * 2 > keys.length) rehash();
+            }
+        }
+
+        private void rehash(){
+            String[] oldKeys = keys;
+            int[] oldLatest = latest;
+            keys = new String[oldKeys.length * 2];
+            latest = new int[keys.length];
+
+            for(int i = 0;i < oldKeys.length;i++){
+                if(oldKeys[i] == null) continue;
+
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                latest[slot] = oldLatest[i];
+            }
+        }
+
+        private static int slot(String[] keys, String name){
+            int hash = name.hashCode();
+            int slot = (hash ^ hash >>> 16) & (keys.length - 1);
+            while(keys[slot] != null && !keys[slot].equals(name)) slot = (slot + 1) & (keys.length - 1);
+            return slot;
         }
     }
 
+    private final Compiler compiler;
     private HashMap<String, String> typeValues;
     private TokenHandler th;
     private KtjMethod method;
-    private Scope scope;
+    private final Scope scope = new Scope();
     private String clazzName;
     private boolean isConstructor;
 
-    AST[] parseAst(String clazzName, boolean isConstructor, KtjMethod method, String code){
-        if(code.trim().isEmpty()) return new AST[]{CompilerUtil.getDefaultReturn(method.returnType)};
+    SyntacticParser(Compiler compiler){
+        this.compiler = compiler;
+    }
 
+    AST[] parseAst(String clazzName, boolean isConstructor, KtjMethod method, TokenSlice code){
         this.method = method;
         this.clazzName = clazzName;
         this.isConstructor = isConstructor;
-        this.th = Lexer.lex(code, clazzName, method.line);
-        scope = new Scope(clazzName, method);
+        this.th = new TokenHandler(code, method.file);
+        scope.reset(clazzName, method);
 
         setUpTypeValues();
         ArrayList<AST> ast = new ArrayList<>();
@@ -100,10 +183,8 @@ final class SyntacticParser {
     private AST parseNextStatement(boolean inLoop){
         if(th.isNext(";") || !th.hasNext()) return null;
 
-        if(th.isNext("}")){
-            th.last();
-            return null;
-        }
+        Token next = th.lookahead(1);
+        if(next != null && next.equals("}")) return null;
 
         AST ast;
 
@@ -154,7 +235,7 @@ final class SyntacticParser {
 
         ast.calc = parseCalc();
 
-        if(!CompilerUtil.isSuperClass(ast.calc.type, "java.lang.Throwable")) err("Expected type java.lang.Throwable got "+ast.calc.type);
+        if(!CompilerUtil.isSuperClass(compiler, ast.calc.type, "java.lang.Throwable")) err("Expected type java.lang.Throwable got "+ast.calc.type);
 
         return ast;
     }
@@ -183,13 +264,13 @@ final class SyntacticParser {
 
         if(!ast.condition.type.equals("boolean")) err("Expected type boolean got "+ast.condition.type);
 
-        scope = new Scope(scope);
+        scope.push();
 
         if(th.assertToken("{", "->").equals("->")){
             ast.ast = new AST[]{parseNextStatement(true)};
         }else ast.ast = parseContent(true);
 
-        scope = scope.last;
+        scope.pop();
 
         return ast;
     }
@@ -199,9 +280,9 @@ final class SyntacticParser {
         ast.doWhile = true;
         th.assertToken("{");
 
-        scope = new Scope(scope);
+        scope.push();
         ast.ast = parseContent(true);
-        scope = scope.last;
+        scope.pop();
 
         th.assertToken("while");
         ast.condition = parseCalc();
@@ -219,24 +300,16 @@ final class SyntacticParser {
         ast.condition = parseCalc();
         if(!ast.condition.type.equals("boolean")) err("Expected type boolean got "+ast.condition.type);
 
-        scope = new Scope(scope);
+        scope.push();
 
         if(th.assertToken("->", "{").equals("->")){
             ast.ast = new AST[]{parseNextStatement(inLoop)};
-
-            if(th.hasNext()){
-                String index = th.getIndex();
-                if(th.isNext("else")) th.last();
-                else{
-                    th.setIndex(index);
-                }
-            }
         }else{
             ast.ast = parseContent(inLoop);
             if (!th.current().equals("}")) err("illegal argument");
         }
 
-        scope = scope.last;
+        scope.pop();
 
         AST.If current = ast;
         boolean end = false;
@@ -252,24 +325,16 @@ final class SyntacticParser {
             }else end = true;
 
             if(th.current().equals("->")){
-                scope = new Scope(scope);
+                scope.push();
                 current.ast = new AST[]{parseNextStatement(inLoop)};
-                scope = scope.last;
-
-                if(th.hasNext()){
-                    String index = th.getIndex();
-                    if(th.isNext("else")) th.last();
-                    else{
-                        th.setIndex(index);
-                    }
-                }
+                scope.pop();
             }else if(th.current().equals("{")){
-                scope = new Scope(scope);
+                scope.push();
 
                 current.ast = parseContent(inLoop);
                 if (!th.current().equals("}")) err("illegal argument");
 
-                scope = scope.last;
+                scope.pop();
             }
         }
 
@@ -283,7 +348,7 @@ final class SyntacticParser {
         ast.type = ast.calc.type;
         th.assertToken("{");
 
-        if(!(ast.type.equals("int") || ast.type.equals("short") || ast.type.equals("byte") || ast.type.equals("char") || CompilerUtil.isSuperClass(ast.type, "java.lang.Enum") || ast.type.equals("java.lang.String"))) err("illegal type "+ast.type);
+        if(!(ast.type.equals("int") || ast.type.equals("short") || ast.type.equals("byte") || ast.type.equals("char") || CompilerUtil.isSuperClass(compiler, ast.type, "java.lang.Enum") || ast.type.equals("java.lang.String"))) err("illegal type "+ast.type);
 
         ArrayList<AST[]> branches = new ArrayList<>();
         while(th.hasNext()){
@@ -302,7 +367,7 @@ final class SyntacticParser {
 
                     ast.values.put(t, branches.size());
 
-                    if (!(t.t.toString().equals(ast.type) || (t.t == Token.Type.IDENTIFIER && CompilerUtil.getFieldType(ast.type, t.s, true, clazzName) != null))) err("Expected type " + ast.type + " got " + t.t.toString());
+                    if (!(t.t.toString().equals(ast.type) || (t.t == Token.Type.IDENTIFIER && CompilerUtil.getFieldType(compiler, ast.type, t.s, true, clazzName) != null))) err("Expected type " + ast.type + " got " + t.t.toString());
                 }while(th.isNext(","));
 
                 if(th.assertToken("->", "{").equals("->")){
@@ -345,7 +410,7 @@ final class SyntacticParser {
             th.assertToken("}");
         }else {
             ast.load = parseCall();
-            if (!CompilerUtil.isSuperClass(ast.load.type, "java.lang.Iterable") && !ast.load.type.startsWith("["))
+            if (!CompilerUtil.isSuperClass(compiler, ast.load.type, "java.lang.Iterable") && !ast.load.type.startsWith("["))
                 err("Expected type java.lang.Iterable got " + ast.load.type);
             ast.type = ast.load.type;
         }
@@ -362,7 +427,7 @@ final class SyntacticParser {
     private AST.TryCatch parseTry(boolean inLoop){
         AST.TryCatch ast = new AST.TryCatch();
 
-        scope = new Scope(scope);
+        scope.push();
 
         if(th.assertToken("->", "{").equals("->")) ast.tryAST = new AST[]{parseNextStatement(inLoop)};
         else{
@@ -370,20 +435,20 @@ final class SyntacticParser {
             if (!th.current().equals("}")) err("illegal argument");
         }
 
-        scope = scope.last;
+        scope.pop();
 
         th.assertToken("catch");
         th.assertToken("(");
         ast.type = th.assertToken(Token.Type.IDENTIFIER).s;
         if(!method.uses.containsKey(ast.type)) err("Unknown type "+ast.type);
         ast.type = method.uses.get(ast.type);
-        if(!CompilerUtil.isSuperClass(ast.type, "java.lang.Exception")) err("Expected type java.lang.Exception got "+ast.type);
+        if(!CompilerUtil.isSuperClass(compiler, ast.type, "java.lang.Exception")) err("Expected type java.lang.Exception got "+ast.type);
         ast.variable = th.assertToken(Token.Type.IDENTIFIER).s;
         if(scope.getType(ast.variable) != null) err("Variable "+ast.variable+" is already defined");
         scope.add(ast.variable, ast.type, false);
         th.assertToken(")");
 
-        scope = new Scope(scope);
+        scope.push();
 
         if(th.assertToken("->", "{").equals("->")){
             ast.catchAST = new AST[]{parseNextStatement(inLoop)};
@@ -392,12 +457,12 @@ final class SyntacticParser {
             if (!th.current().equals("}")) err("illegal argument");
         }
 
-        scope = scope.last;
+        scope.pop();
         return ast;
     }
 
     private AST[] parseContent(boolean inLoop){
-        scope = new Scope(scope);
+        scope.push();
         ArrayList<AST> astList = new ArrayList<>();
 
         while(!th.isNext("}")){
@@ -407,7 +472,7 @@ final class SyntacticParser {
 
         if(!th.current().equals("}")) err("Expected }");
 
-        scope = scope.last;
+        scope.pop();
         return astList.toArray(new AST[0]);
     }
 
@@ -449,11 +514,11 @@ final class SyntacticParser {
                 }
             }
 
-            String i = th.getIndex();
+            int mark = th.mark();
             if(th.isNext("<")){
                 do{
                     if(!(th.isNext(Token.Type.IDENTIFIER) && method.uses.containsKey(th.current().s))){
-                        th.setIndex(i);
+                        th.reset(mark);
                         th.last();
                         return parseAssignment();
                     }
@@ -464,13 +529,13 @@ final class SyntacticParser {
             while(th.isNext("[")){
                 if(!th.isNext("]")){
                     if(constant) err("illegal argument");
-                    th.setIndex(i);
+                    th.reset(mark);
                     th.last();
                     return parseAssignment();
                 }
             }
 
-            th.setIndex(i);
+            th.reset(mark);
             StringBuilder type = new StringBuilder(method.validateType(th.current().s, false));
 
             StringBuilder genericType = new StringBuilder();
@@ -483,7 +548,7 @@ final class SyntacticParser {
                 }while(th.isNext(","));
                 th.assertToken(">");
 
-                if(!CompilerUtil.validateGenericTypes(type.toString(), genericType.toString().split("%"))) err("invalid generic Types "+genericType+" for class "+type);
+                if(!CompilerUtil.validateGenericTypes(compiler, type.toString(), genericType.toString().split("%"))) err("invalid generic Types "+genericType+" for class "+type);
             }
 
             while(th.isNext("[")){
@@ -501,7 +566,7 @@ final class SyntacticParser {
             if(CompilerUtil.PRIMITIVES.contains(type.toString())){
                 if(!type.toString().equals(calc.type)) err("Expected type "+type+" got "+calc.type);
             }else if(!calc.type.equals("null")){
-                if(!CompilerUtil.isSuperClass(calc.type, type.toString())) err("Expected type "+type+" got "+calc.type);
+                if(!CompilerUtil.isSuperClass(compiler, calc.type, type.toString())) err("Expected type "+type+" got "+calc.type);
             }
             if(scope.getType(name) != null) err("variable "+name+" is already defined");
 
@@ -524,7 +589,7 @@ final class SyntacticParser {
         if(th.current().equals(Token.Type.OPERATOR)) return parseCalc();
 
         th.last();
-        String i = th.getIndex();
+        int mark = th.mark();
         AST.Load load = parseCall();
         if(load.finaly) th.assertEndOfStatement();
 
@@ -533,7 +598,7 @@ final class SyntacticParser {
             th.assertEndOfStatement();
 
             if(load.call == null && load.name != null && scope.isConst(load.name)) err(load.name+" is constant and can't be modified");
-            if(!load.type.equals(calc.type) && !(calc.type.equals("null") && !CompilerUtil.PRIMITIVES.contains(load.type)) && !CompilerUtil.isSuperClass(calc.type, load.type)) err("Expected type "+load.type+" got "+calc.type);
+            if(!load.type.equals(calc.type) && !(calc.type.equals("null") && !CompilerUtil.PRIMITIVES.contains(load.type)) && !CompilerUtil.isSuperClass(compiler, calc.type, load.type)) err("Expected type "+load.type+" got "+calc.type);
 
             AST.VarAssignment ast = new AST.VarAssignment();
             ast.calc = calc;
@@ -542,7 +607,7 @@ final class SyntacticParser {
 
             return ast;
         }else if(th.hasNext()){
-            th.setIndex(i);
+            th.reset(mark);
             return parseCalc();
         }
 
@@ -550,7 +615,7 @@ final class SyntacticParser {
     }
 
     private AST.Calc parseCalc(){
-        AST.Calc ast = new AST.Calc();
+        AST.Calc ast;
 
         if(th.isNext("(")){
             ast = parseCalc();
@@ -572,6 +637,7 @@ final class SyntacticParser {
                 ast.type = call.type;
             }
         }else{
+            ast = new AST.Calc();
             AST.CalcArg arg = parseValue();
 
             if(arg instanceof AST.Value && ((AST.Value) arg).op != null && CompilerUtil.PRIMITIVES.contains(arg.type)){
@@ -580,7 +646,7 @@ final class SyntacticParser {
                     ((AST.Value) arg).op = null;
                     ast.arg = arg;
                     ast.type = arg.type;
-                    ast.setRight();
+                    ast = AST.Calc.above(ast);
                     ast.op = "=";
                     ast.type = arg.type;
                     ast.left = new AST.Calc();
@@ -597,7 +663,7 @@ final class SyntacticParser {
                     ((AST.Value) arg).op = null;
                     ast.arg = arg;
                     ast.type = arg.type;
-                    ast.setRight();
+                    ast = AST.Calc.above(ast);
                     ast.type = "boolean";
                     ast.op = "!=";
                     AST.Value value = new AST.Value();
@@ -615,10 +681,9 @@ final class SyntacticParser {
         }
 
         while(th.hasNext()){
-            if((!th.next().equals(Token.Type.OPERATOR) || th.current().equals("->")) && !th.current().equals("?")){
-                th.last();
-                return ast;
-            }
+            Token next = th.lookahead(1);
+            if((!next.equals(Token.Type.OPERATOR) || next.equals("->")) && !next.equals("?")) return ast;
+            th.next();
 
             if(th.current().equals("?")){
                 AST.InlineIf arg = new AST.InlineIf();
@@ -637,7 +702,7 @@ final class SyntacticParser {
                 return ast;
             }
 
-            ast.setRight();
+            ast = AST.Calc.above(ast);
             ast.op = th.current().s;
 
             if(ast.op.equals("=")){
@@ -648,7 +713,7 @@ final class SyntacticParser {
                 AST.Calc left = new AST.Calc();
                 left.arg = ast.right.arg;
                 left.type = ast.type;
-                left.setRight();
+                left = AST.Calc.above(left);
                 left.op = op;
                 left.type = ast.type;
                 left.left = parseCalc();
@@ -682,7 +747,7 @@ final class SyntacticParser {
                         ast.left.arg = value;
                         ast.left.type = call.type;
                     }else {
-                        String[] methodSpecs = CompilerUtil.getOperatorReturnType(ast.right.type, ast.left.type, ast.op);
+                        String[] methodSpecs = CompilerUtil.getOperatorReturnType(compiler, ast.right.type, ast.left.type, ast.op);
                         if (methodSpecs == null)
                             err("Operator " + ast.op + " is not defined for " + ast.right.type + " and " + ast.left.type);
                         ast.type = methodSpecs[0];
@@ -698,7 +763,7 @@ final class SyntacticParser {
                             AST.Calc left = new AST.Calc();
                             left.arg = arg;
                             left.type = arg.type;
-                            left.setRight();
+                            left = AST.Calc.above(left);
                             left.op = "=";
                             left.type = arg.type;
                             left.left = new AST.Calc();
@@ -719,7 +784,7 @@ final class SyntacticParser {
                             AST.Calc left = new AST.Calc();
                             left.arg = arg;
                             left.type = arg.type;
-                            left.setRight();
+                            left = AST.Calc.above(left);
                             left.type = "boolean";
                             left.op = "!=";
                             AST.Value value = new AST.Value();
@@ -735,7 +800,7 @@ final class SyntacticParser {
                         }
                     }else{
                         ast.arg = arg;
-                        String[] methodSpecs = CompilerUtil.getOperatorReturnType(ast.right.type, ast.arg.type, ast.op);
+                        String[] methodSpecs = CompilerUtil.getOperatorReturnType(compiler, ast.right.type, ast.arg.type, ast.op);
                         if(methodSpecs == null) err("Operator "+ast.op+" is not defined for "+ast.right.type+" and "+ast.arg.type);
                         ast.type = methodSpecs[0];
                         ast.op = methodSpecs[1];
@@ -751,7 +816,7 @@ final class SyntacticParser {
 
     private AST.CalcArg parseValue(){
         th.next();
-        String index = th.getIndex();
+        int mark = th.mark();
 
         if(th.current().equals(Token.Type.IDENTIFIER) && (CompilerUtil.PRIMITIVES.contains(th.current().s) || method.uses.containsKey(th.current().s))){
             String type = CompilerUtil.PRIMITIVES.contains(th.current().s) ? th.current().s : method.uses.get(th.current().s);
@@ -768,14 +833,14 @@ final class SyntacticParser {
                 ast.calc = parseCalc();
                 ast.type = ast.cast;
 
-                if (!CompilerUtil.canCast(ast.calc.type, ast.cast))
+                if (!CompilerUtil.canCast(compiler, ast.calc.type, ast.cast))
                     err("Unable to cast " + ast.calc.type + " to " + ast.cast);
 
                 return ast;
             }
         }
 
-        th.setIndex(index);
+        th.reset(mark);
         AST.Value ast = new AST.Value();
 
         switch(th.current().t){
@@ -797,8 +862,8 @@ final class SyntacticParser {
                     ast.type = "null";
                 }else{
                     if(typeValues.containsKey(th.current().s)){
-                        if(th.isNext("(") || th.isNext(".")) th.last();
-                        else{
+                        Token next = th.lookahead(1);
+                        if(next == null || !(next.equals("(") || next.equals("."))){
                             String value = th.current().s;
                             String clazz = typeValues.get(th.current().s);
                             ast.type = clazz;
@@ -836,7 +901,7 @@ final class SyntacticParser {
                     if(arg instanceof AST.Cast) err("Expected value");
 
                     ((AST.Value) arg).op = op;
-                    String[] methodsSpecs = CompilerUtil.getOperatorReturnType(arg.type, op);
+                    String[] methodsSpecs = CompilerUtil.getOperatorReturnType(compiler, arg.type, op);
                     if(methodsSpecs == null) err("Operator "+op+" is not defined for "+arg.type);
                     arg.type = methodsSpecs[0];
                     ((AST.Value) arg).op = methodsSpecs[1];
@@ -975,7 +1040,7 @@ final class SyntacticParser {
                 }while(th.isNext(","));
                 th.assertToken(">");
 
-                if(!CompilerUtil.validateGenericTypes(method.uses.get(call), genericType.toString().split("%"))) err("invalid generic Types "+genericType+" for class "+method.uses.get(call));
+                if(!CompilerUtil.validateGenericTypes(compiler, method.uses.get(call), genericType.toString().split("%"))) err("invalid generic Types "+genericType+" for class "+method.uses.get(call));
             }
 
             if(th.isNext("[")){
@@ -1004,7 +1069,6 @@ final class SyntacticParser {
                 ast.call.clazz = method.uses.get(call);
                 ast.call.name = "<init>";
 
-                StringBuilder desc = new StringBuilder("<init>");
                 ArrayList<AST.Calc> args = new ArrayList<>();
 
                 if(!th.isNext(")")){
@@ -1015,9 +1079,9 @@ final class SyntacticParser {
                     }
                 }
 
-                for (AST.Calc calc:args) desc.append("%").append(calc.type);
+                MethodSig desc = signature("<init>", args);
 
-                String[] methodSpecs = CompilerUtil.getMethod(ast.call.clazz, false, desc.toString(), clazzName);
+                String[] methodSpecs = CompilerUtil.getMethod(compiler, compiler.types.type(ast.call.clazz), false, desc, clazzName);
                 if(methodSpecs == null)
                     err("Method "+desc+" is not defined for class "+ast.call.clazz);
 
@@ -1035,7 +1099,6 @@ final class SyntacticParser {
                 call = th.assertToken(Token.Type.IDENTIFIER).s;
 
                 if(th.isNext("(")) {
-                    StringBuilder desc = new StringBuilder(call);
                     ArrayList<AST.Calc> args = new ArrayList<>();
 
                     if (!th.isNext(")")) {
@@ -1046,9 +1109,9 @@ final class SyntacticParser {
                         }
                     }
 
-                    for (AST.Calc calc : args) desc.append("%").append(calc.type);
+                    MethodSig desc = signature(call, args);
 
-                    String[] methodSpecs = CompilerUtil.getMethod(ast.call.clazz, true, desc.toString(), clazzName);
+                    String[] methodSpecs = CompilerUtil.getMethod(compiler, compiler.types.type(ast.call.clazz), true, desc, clazzName);
                     if(methodSpecs == null)
                         err("Static Method "+desc+" is not defined for class "+ast.call.clazz);
 
@@ -1061,7 +1124,7 @@ final class SyntacticParser {
                     ast.call.argTypes = args.toArray(new AST.Calc[0]);
                 }else{
                     ast.call.name = call;
-                    String[] fieldSpecs = CompilerUtil.getFieldType(ast.call.clazz, call, true, clazzName);
+                    String[] fieldSpecs = CompilerUtil.getFieldType(compiler, ast.call.clazz, call, true, clazzName);
                     if(fieldSpecs == null) err("Static Field "+call+" is not defined for class "+ ast.call.clazz);
 
                     ast.call.type = fieldSpecs[1] != null ? fieldSpecs[1] : fieldSpecs[0];
@@ -1082,7 +1145,6 @@ final class SyntacticParser {
                 ast.call.clazz = clazzName;
                 ast.call.name = call;
 
-                StringBuilder desc = new StringBuilder(call);
                 ArrayList<AST.Calc> args = new ArrayList<>();
 
                 if (!th.isNext(")")) {
@@ -1093,20 +1155,20 @@ final class SyntacticParser {
                     }
                 }
 
-                for (AST.Calc calc : args) desc.append("%").append(calc.type);
+                MethodSig desc = signature(call, args);
 
-                String[] methodSpecs = CompilerUtil.getMethod(ast.call.clazz, false, desc.toString(), clazzName);
+                String[] methodSpecs = CompilerUtil.getMethod(compiler, compiler.types.type(ast.call.clazz), false, desc, clazzName);
 
                 if(methodSpecs == null){
-                    methodSpecs = CompilerUtil.getMethod(ast.call.clazz, true, desc.toString(), clazzName);
+                    methodSpecs = CompilerUtil.getMethod(compiler, compiler.types.type(ast.call.clazz), true, desc, clazzName);
                     ast.call.statik = true;
                 }
 
                 if(methodSpecs == null){
-                    ast.call.clazz = getClazzFromMethod(desc.toString());
+                    ast.call.clazz = getClazzFromMethod(desc);
                     if(ast.call.clazz == null)
                         err("Method " + desc + " is not defined for class " + clazzName);
-                    methodSpecs = CompilerUtil.getMethod(ast.call.clazz, true, desc.toString(), clazzName);
+                    methodSpecs = CompilerUtil.getMethod(compiler, compiler.types.type(ast.call.clazz), true, desc, clazzName);
                     ast.call.statik = true;
                 }
 
@@ -1122,10 +1184,10 @@ final class SyntacticParser {
                 ast.call.clazz = clazzName;
 
                 ast.call.name = call;
-                String[] fieldSpecs = CompilerUtil.getFieldType(clazzName, call, false, clazzName);
+                String[] fieldSpecs = CompilerUtil.getFieldType(compiler, clazzName, call, false, clazzName);
 
                 if(fieldSpecs == null){
-                    fieldSpecs = CompilerUtil.getFieldType(clazzName, call, true, clazzName);
+                    fieldSpecs = CompilerUtil.getFieldType(compiler, clazzName, call, true, clazzName);
                     ast.call.statik = true;
                 }
 
@@ -1133,7 +1195,7 @@ final class SyntacticParser {
                     ast.call.clazz = getClazzFromField(call);
                     if(ast.call.clazz == null)
                         err("Field " + call + " is not defined for class " + clazzName);
-                    fieldSpecs = CompilerUtil.getFieldType(ast.call.clazz, call, true, clazzName);
+                    fieldSpecs = CompilerUtil.getFieldType(compiler, ast.call.clazz, call, true, clazzName);
                     ast.call.statik = true;
                 }
 
@@ -1152,7 +1214,7 @@ final class SyntacticParser {
                     if (!ast.call.type.startsWith("["))
                         err("Expected array got " + ast.call.type);
 
-                    ast.call.setPrev();
+                    ast.call = new AST.Call(ast.call);
                     ast.call.clazz = ast.call.prev.type;
                 }
 
@@ -1175,14 +1237,12 @@ final class SyntacticParser {
     }
 
     private AST.Call parseCallArg(AST.Call call, String currentClass){
-        if(call != null) call.setPrev();
-        else call = new AST.Call();
+        call = new AST.Call(call);
 
         String name = th.assertToken(Token.Type.IDENTIFIER).s;
         call.clazz = currentClass;
 
         if(th.isNext("(")){
-            StringBuilder desc = new StringBuilder(name);
             ArrayList<AST.Calc> args = new ArrayList<>();
 
             if(!th.isNext(")")){
@@ -1193,11 +1253,11 @@ final class SyntacticParser {
                 }
             }
 
-            for (AST.Calc calc:args) desc.append("%").append(calc.type);
+            MethodSig desc = signature(name, args);
 
             call.argTypes = args.toArray(new AST.Calc[0]);
 
-            String[] methodSpecs = CompilerUtil.getMethod(call.clazz, false, desc.toString(), clazzName);
+            String[] methodSpecs = CompilerUtil.getMethod(compiler, compiler.types.type(call.clazz), false, desc, clazzName);
             if(methodSpecs == null)
                 err("Method "+desc+" is not defined for class "+currentClass);
 
@@ -1207,7 +1267,7 @@ final class SyntacticParser {
             if(methodSpecs.length == 3) call.cast = methodSpecs[2];
         }else{
             call.name = name;
-            String[] fieldSpecs = CompilerUtil.getFieldType(call.clazz, name, false, clazzName);
+            String[] fieldSpecs = CompilerUtil.getFieldType(compiler, call.clazz, name, false, clazzName);
 
             if(fieldSpecs == null) err("Field "+name+" is not defined for class "+currentClass);
 
@@ -1219,7 +1279,7 @@ final class SyntacticParser {
         while(th.isNext("[")){
             if(!call.type.startsWith("[")) err("Expected array got "+call.type);
 
-            call.setPrev();
+            call = new AST.Call(call);
             call.clazz = call.prev.type;
             call.type = call.clazz.substring(1);
             call.argTypes = new AST.Calc[]{parseCalc()};
@@ -1234,16 +1294,22 @@ final class SyntacticParser {
         return call;
     }
 
-    private String getClazzFromMethod(String method){
+    private String getClazzFromMethod(MethodSig method){
         for(String name:this.method.statics){
-            if(CompilerUtil.getMethod(this.method.uses.get(name), true, method, clazzName) != null) return this.method.uses.get(name);
+            if(CompilerUtil.getMethod(compiler, compiler.types.type(this.method.uses.get(name)), true, method, clazzName) != null) return this.method.uses.get(name);
         }
         return null;
     }
 
+    private MethodSig signature(String name, ArrayList<AST.Calc> args){
+        TypeRef[] types = new TypeRef[args.size()];
+        for(int i = 0;i < types.length;i++) types[i] = compiler.types.type(args.get(i).type);
+        return compiler.types.signature(name, types);
+    }
+
     private String getClazzFromField(String field){
         for(String name:method.statics){
-            String[] type = CompilerUtil.getFieldType(method.uses.get(name), field, true, clazzName);
+            String[] type = CompilerUtil.getFieldType(compiler, method.uses.get(name), field, true, clazzName);
             if(type != null) return method.uses.get(name);
         }
         return null;
@@ -1252,10 +1318,10 @@ final class SyntacticParser {
     private void setUpTypeValues(){
         typeValues = new HashMap<>();
 
-        for(String clazz:method.uses.values()) if(CompilerUtil.isType(clazz)) for(String type:CompilerUtil.getTypes(clazz)) if(!typeValues.containsKey(type)) typeValues.put(type, clazz);
+        for(String clazz:method.uses.values()) if(CompilerUtil.isType(compiler, clazz)) for(String type:CompilerUtil.getTypes(compiler, clazz)) if(!typeValues.containsKey(type)) typeValues.put(type, clazz);
     }
 
     private void err(String message) throws ParsingException{
-        throw new ParsingException(message, clazzName, th.getLine());
+        throw new ParsingException(message, method.file, th.getLine());
     }
 }
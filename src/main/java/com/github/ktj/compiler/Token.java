@@ -16,8 +16,39 @@
 
 package com.github.ktj.compiler;
 
+import java.util.HashMap;
+
 class Token{
 
+    private static final String[] SYMBOLS = {
+            "use", "from", "as", "main", "public", "private", "protected", "final", "abstract", "static", "synchronised",
+            "const", "volatile", "transient", "strict", "native", "class", "interface", "data", "type", "object",
+            "extends", "for", "in", "while", "do", "if", "else", "break", "return", "throw", "switch", "try", "catch",
+            "default", "true", "false", "null", "void", "int", "short", "long", "float", "double", "boolean", "char", "byte",
+            "{", "}", "(", ")", "[", "]", ",", ";", ".", ":", "?", "_", "$", "@",
+            "=", "->", "==", "!=", "===", "!==", "<", ">", "<=", ">=", "<<", ">>", "+", "-", "*", "/", "%", "!", "&", "|",
+            "^", "~", "&&", "||", "++", "--", "+=", "-=", "*=", "/=", "%="
+    };
+    private static final HashMap<String, Integer> SYMBOL_IDS = new HashMap<>();
+    private static final Token[] SYMBOL_TOKENS = new Token[SYMBOLS.length + 1];
+    private static final String[] TABLE = new String[256];
+    private static final int[] TABLE_IDS = new int[TABLE.length];
+
+    static{
+        for(int id = 1;id <= SYMBOLS.length;id++){
+            String symbol = SYMBOLS[id - 1];
+            char c = symbol.charAt(0);
+
+            SYMBOL_IDS.put(symbol, id);
+            SYMBOL_TOKENS[id] = new Token(symbol, Character.isLetter(c) ? Type.IDENTIFIER : Lexer.isOperator(c) ? Type.OPERATOR : Type.SIMPLE);
+
+            int slot = slot(symbol.hashCode());
+            while(TABLE[slot] != null) slot = (slot + 1) & (TABLE.length - 1);
+            TABLE[slot] = symbol;
+            TABLE_IDS[slot] = id;
+        }
+    }
+
     public enum Type{
         SIMPLE, IDENTIFIER, STRING, OPERATOR, CHAR, INTEGER, LONG, DOUBLE, FLOAT, SHORT;
 
@@ -45,8 +76,8 @@ class Token{
         }
     }
 
-    public String s;
-    public Type t;
+    public final String s;
+    public final Type t;
 
     public Token(String s, Type t){
         this.s = s;
@@ -80,4 +111,34 @@ class Token{
     public String toString() {
         return s;
     }
+
+    /** @return the id of an interned keyword, operator or punctuation symbol or 0 if s is none */
+    static int symbol(String s){
+        Integer id = SYMBOL_IDS.get(s);
+        return id == null ? 0 : id;
+    }
+
+    static int symbol(char[] chars, int start, int length){
+        int hash = 0;
+        for(int i = start;i < start + length;i++) hash = 31 * hash + chars[i];
+
+        for(int slot = slot(hash);TABLE[slot] != null;slot = (slot + 1) & (TABLE.length - 1)){
+            String symbol = TABLE[slot];
+            if(symbol.length() != length) continue;
+
+            int i = 0;
+            while(i < length && symbol.charAt(i) == chars[start + i]) i++;
+            if(i == length) return TABLE_IDS[slot];
+        }
+
+        return 0;
+    }
+
+    static Token symbolToken(int id){
+        return SYMBOL_TOKENS[id];
+    }
+
+    private static int slot(int hash){
+        return (hash ^ hash >>> 7) & (TABLE.length - 1);
+    }
 }
@@ -20,62 +20,46 @@ import java.util.Arrays;
 
 final class TokenHandler{
 
-    private final Token[][] token;
+    private final TokenStream token;
     private final String file;
-    private final int lineOffset;
-    private int line;
+    private final int from, to;
     private int i;
 
-    TokenHandler(Token[][] token, String file, int lineOffset){
-        this.token = token;
+    TokenHandler(TokenStream token, String file){
+        this(new TokenSlice(token, 0, token.size()), file);
+    }
+
+    TokenHandler(TokenSlice slice, String file){
+        token = slice.stream;
+        from = slice.from;
+        to = slice.to;
         this.file = file;
-        this.lineOffset = lineOffset;
-        line = 0;
-        i = -1;
+        i = from - 1;
     }
 
     public Token next(){
-        if(i + 1 < token[line].length){
-            i++;
-            return token[line][i];
-        }else{
-            while(++line < token.length){
-                if(token[line].length > 0){
-                    i = 0;
-                    return token[line][i];
-                }
-            }
-        }
+        if(i + 1 < to) return token.get(++i);
+
         err("Expected Token got nothing");
         return new Token(null, null); // unreachable statement
     }
 
     public Token current(){
-        if(i == -1 || i >= token[line].length) err("Expected Token got nothing");
-        return token[line][i];
+        if(i < from || i >= to) err("Expected Token got nothing");
+        return token.get(i);
     }
 
     public Token last(){
-        if(i > 0){
-            i--;
-            return token[line][i];
-        }else{
-            while(--line >= 0){
-                if(token[line].length > 0){
-                    i = token[line].length - 1;
-                    return token[line][i];
-                }
-            }
-        }
-        i = -1;
-        line = 0;
+        if(i > from) return token.get(--i);
+
+        i = from - 1;
         return new Token(null, null);
     }
 
     public Token assertToken(String...strings){
         Token t = next();
 
-        for(String string:strings) if(t.equals(string)) return t;
+        for(String string:strings) if(token.is(i, string)) return t;
 
         err("Expected one of "+Arrays.toString(strings)+" got "+t.s);
         return new Token(null, null); // unreachable statement
@@ -95,7 +79,7 @@ final class TokenHandler{
 
         if(t.equals(type)) return t;
 
-        for(String string:strings) if(t.equals(string)) return t;
+        for(String string:strings) if(token.is(i, string)) return t;
 
         err("Expected one of "+type+(strings.length != 0 ? ", "+Arrays.toString(strings) : "")+" got "+t.s);
         return new Token(null, null); // unreachable statement
@@ -107,14 +91,14 @@ final class TokenHandler{
         if(t.equals(type1)) return t;
         if(t.equals(type2)) return t;
 
-        for(String string:strings) if(t.equals(string)) return t;
+        for(String string:strings) if(token.is(i, string)) return t;
 
         err("Expected one of "+type1+", "+type2+(strings.length != 0 ? ", "+Arrays.toString(strings) : "")+" got "+t.s);
         return new Token(null, null); // unreachable statement
     }
 
     public void assertEndOfStatement(){
-        if(i + 1 != token[line].length) assertToken(";");
+        if(!isEndOfLine()) assertToken(";");
     }
 
     public void assertHasNext(){
@@ -123,68 +107,64 @@ final class TokenHandler{
     }
 
     public boolean isNext(String string){
-        if(!hasNext()) return false;
-        if(next().equals(string)) return true;
+        if(!hasNext() || !token.is(i + 1, string)) return false;
 
-        last();
-        return false;
+        i++;
+        return true;
     }
 
     public boolean isNext(Token.Type type){
-        if(next().equals(type)) return true;
+        if(!hasNext()) err("Expected Token got nothing");
+        if(token.type(i + 1) != type) return false;
 
-        last();
-        return false;
+        i++;
+        return true;
     }
 
     public boolean isEndOfStatement(){
-        if(i + 1 == token[line].length) return true;
+        if(isEndOfLine()) return true;
 
         return isNext(";");
     }
 
     public boolean hasNext(){
-        String index = getIndex();
-        if(line < token.length && i + 1 < token[line].length){
-            setIndex(index);
-            return true;
-        }else{
-            while(++line < token.length){
-                if(token[line].length > 0){
-                    setIndex(index);
-                    return true;
-                }
-            }
-        }
-        setIndex(index);
-        return false;
+        return i + 1 < to;
     }
 
     public int getLine(){
-        if(lineOffset > 0) return lineOffset + line;
-        return line + 1;
+        if(from >= to) return 1;
+        return token.line(Math.min(Math.max(i, from), to - 1)) + 1;
+    }
+
+    /** @return the token n positions after the current one without moving the cursor or null if there is none */
+    public Token lookahead(int n){
+        return i + n >= from && i + n < to ? token.get(i + n) : null;
+    }
+
+    public int mark(){
+        return i;
     }
 
-    public String getIndex(){
-        return line +":"+i;
+    public void reset(int mark){
+        i = mark;
     }
 
-    public void setIndex(String index){
-        String[] s = index.split(":");
-        line = Integer.parseInt(s[0]);
-        i = Integer.parseInt(s[1]);
+    /** @return the tokens between two marks, from inclusive and to exclusive */
+    public TokenSlice slice(int from, int to){
+        return new TokenSlice(token, from, to);
+    }
+
+    public TokenSlice.Builder builder(){
+        return new TokenSlice.Builder(token.source);
     }
 
     @Override
     public String toString(){
-        StringBuilder sb = new StringBuilder();
-
-        for(Token[] line:token){
-            for(Token token:line) sb.append(token).append(" ");
-            sb.append("\n");
-        }
+        return new TokenSlice(token, from, to).toString();
+    }
 
-        return sb.toString();
+    private boolean isEndOfLine(){
+        return i + 1 >= to || (i >= from && token.line(i + 1) != token.line(i));
     }
 
     private void err(String message) throws ParsingException{
@@ -193,19 +173,12 @@ final class TokenHandler{
         StringBuilder sb = new StringBuilder(message);
         sb.append(" near ");
 
-        String index = getIndex();
-        try{
-            if(last() == null) throw new ParsingException("", "", 0);
-            sb.append(current());
-            next();
-        }catch(ParsingException ignored){
-            setIndex(index);
-        }
+        if(i > from && i <= to) sb.append(token.get(i - 1));
 
-        if(line < 0 || line >= token.length || i == -1 || i >= token[line].length) throw new ParsingException(sb.toString(), file, line);
+        if(i < from || i >= to) throw new ParsingException(sb.toString(), file, line);
 
-        sb.append(" ").append(current()).append(" ");
-        if(hasNext()) sb.append(next());
+        sb.append(" ").append(token.get(i)).append(" ");
+        if(hasNext()) sb.append(token.get(i + 1));
 
         throw new ParsingException(sb.toString(), file, line);
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+/**
+ * A range of already lexed tokens, e.g. the body of a method, which is parsed without lexing it again.
+ */
+public final class TokenSlice{
+
+    public static final TokenSlice EMPTY = new TokenSlice(new TokenStream(new char[0], 0), 0, 0);
+
+    final TokenStream stream;
+    final int from, to;
+
+    TokenSlice(TokenStream stream, int from, int to){
+        this.stream = stream;
+        this.from = from;
+        this.to = to;
+    }
+
+    public boolean isEmpty(){
+        return from >= to;
+    }
+
+    public int size(){
+        return to - from;
+    }
+
+    public String text(int i){
+        return stream.get(from + i).s;
+    }
+
+    /** lexes code which isn't part of a source file, like generated default values */
+    public static TokenSlice of(String code, String file, int line){
+        TokenStream stream = Lexer.lex(code, file, line);
+        return new TokenSlice(stream, 0, stream.size());
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = from;i < to;i++){
+            if(i > from) sb.append(stream.line(i) != stream.line(i - 1) ? "\n" : " ");
+            sb.append(stream.get(i));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Joins slices and synthesized tokens to a new slice, lines are 1-based like everywhere else.
+     */
+    static final class Builder{
+
+        private final TokenStream stream;
+
+        Builder(char[] source){
+            stream = new TokenStream(source, 16);
+        }
+
+        Builder add(TokenSlice slice){
+            for(int i = slice.from;i < slice.to;i++) stream.add(slice.stream, i);
+            return this;
+        }
+
+        Builder add(Token token, int line){
+            stream.add(token, Math.max(line - 1, 0));
+            return this;
+        }
+
+        Builder add(String symbol, int line){
+            int id = Token.symbol(symbol);
+            if(id == 0) throw new RuntimeException(symbol+" is no symbol");
+            return add(Token.symbolToken(id), line);
+        }
+
+        /** adds name = value ; */
+        Builder assign(String name, TokenSlice value, int line){
+            if(!value.isEmpty()) line = value.stream.line(value.from) + 1;
+
+            add(new Token(name, Token.Type.IDENTIFIER), line).add("=", line).add(value);
+            return add(";", value.isEmpty() ? line : value.stream.line(value.to - 1) + 1);
+        }
+
+        int lastLine(){
+            return stream.size() == 0 ? 0 : stream.line(stream.size() - 1) + 1;
+        }
+
+        TokenSlice build(){
+            return new TokenSlice(stream, 0, stream.size());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Tokens of one source as parallel arrays of packed kinds and offsets into the shared source chars.
+ * Token objects are only created on demand, interned symbols are shared and never copy their text.
+ */
+final class TokenStream{
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    final char[] source;
+    private int[] kind;
+    private int[] start;
+    private int[] length;
+    private int[] line;
+    private Token[] tokens;
+    private int size = 0;
+
+    TokenStream(char[] source, int capacity){
+        this.source = source;
+        capacity = Math.max(capacity, 16);
+        kind = new int[capacity];
+        start = new int[capacity];
+        length = new int[capacity];
+        line = new int[capacity];
+        tokens = new Token[capacity];
+    }
+
+    void add(Token.Type type, int symbol, int start, int length, int line){
+        add(symbol << 4 | type.ordinal(), start, length, line);
+    }
+
+    void add(Token token, int line){
+        int symbol = Token.symbol(token.s);
+        if(symbol != 0 && Token.symbolToken(symbol).t == token.t) add(token.t, symbol, 0, 0, line);
+        else addSynthesized(token, line);
+    }
+
+    /** adds a token, which is neither a symbol nor part of the source */
+    void addSynthesized(Token token, int line){
+        add(token.t, 0, 0, 0, line);
+        tokens[size - 1] = token;
+    }
+
+    /** copies the i-th token of other, tokens which can't be read from this source are materialized */
+    void add(TokenStream other, int i){
+        if(other.symbol(i) == 0 && (other.source != source || other.tokens[i] != null)) add(other.get(i), other.line[i]);
+        else add(other.kind[i], other.start[i], other.length[i], other.line[i]);
+    }
+
+    private void add(int kind, int start, int length, int line){
+        if(size == this.kind.length){
+            int capacity = size * 2;
+            this.kind = Arrays.copyOf(this.kind, capacity);
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.length = Arrays.copyOf(this.length, capacity);
+            this.line = Arrays.copyOf(this.line, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+        }
+
+        this.kind[size] = kind;
+        this.start[size] = start;
+        this.length[size] = length;
+        this.line[size] = line;
+        size++;
+    }
+
+    int size(){
+        return size;
+    }
+
+    Token.Type type(int i){
+        return TYPES[kind[i] & 0xF];
+    }
+
+    int symbol(int i){
+        return kind[i] >>> 4;
+    }
+
+    int line(int i){
+        return line[i];
+    }
+
+    int start(int i){
+        return start[i];
+    }
+
+    int length(int i){
+        return length[i];
+    }
+
+    boolean is(int i, String s){
+        int symbol = Token.symbol(s);
+        if(symbol != 0) return symbol(i) == symbol;
+
+        return get(i).equals(s);
+    }
+
+    Token get(int i){
+        int symbol = symbol(i);
+        if(symbol != 0) return Token.symbolToken(symbol);
+
+        Token token = tokens[i];
+        if(token == null){
+            // the stream of a file is shared by all classes of the file, which are compiled in parallel
+            synchronized(this){
+                if(tokens[i] == null) tokens[i] = new Token(new String(source, start[i], length[i]), type(i));
+                token = tokens[i];
+            }
+        }
+        return token;
+    }
+}
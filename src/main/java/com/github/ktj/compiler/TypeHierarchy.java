@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import com.github.ktj.lang.Compilable;
+import com.github.ktj.lang.KtjClass;
+import com.github.ktj.lang.KtjDataClass;
+import com.github.ktj.lang.KtjInterface;
+import com.github.ktj.lang.KtjTypeClass;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows every supertype of a class, superclasses and transitive interfaces, so subtype checks are a single lookup.
+ * Supertypes of kataja classes are only cached after {@link #seal()}, before that their super types may still be unresolved names.
+ */
+final class TypeHierarchy{
+
+    private final Compiler compiler;
+    private final ConcurrentHashMap<String, Set<String>> supertypes = new ConcurrentHashMap<>();
+    private volatile boolean sealed;
+
+    TypeHierarchy(Compiler compiler){
+        this.compiler = compiler;
+    }
+
+    /** called after the types of all kataja classes are validated */
+    void seal(){
+        sealed = true;
+    }
+
+    boolean isSealed(){
+        return sealed;
+    }
+
+    /** @return true if type is superType or a subtype of it, java.lang.Object is only contained if it is a direct supertype */
+    boolean isSubtype(String type, String superType){
+        return type.equals(superType) || getSupertypes(type).contains(superType);
+    }
+
+    /** @return all supertypes of the class without the class itself, empty if there is no such class */
+    Set<String> getSupertypes(String type){
+        Set<String> result = supertypes.get(type);
+        if(result != null) return result;
+
+        boolean isKtj = compiler.classes.containsKey(type);
+        result = compute(type);
+
+        //computing looks up the supertypes through this cache, so it can't happen inside computeIfAbsent
+        if(!isKtj || sealed){
+            Set<String> previous = supertypes.putIfAbsent(type, result);
+            if(previous != null) result = previous;
+        }
+        return result;
+    }
+
+    /**
+     * @return the most specific common superclass like the verifier merges two types, an interface if one type implements the other,
+     * or null if one of the types is unknown
+     */
+    String getCommonSuperclass(String type1, String type2){
+        if(!exists(type1) || !exists(type2)) return null;
+
+        if(isSubtype(type2, type1)) return type1;
+        if(isSubtype(type1, type2)) return type2;
+        if(isInterface(type1) || isInterface(type2)) return "java.lang.Object";
+
+        for(String superclass = getSuperclass(type1);superclass != null;superclass = getSuperclass(superclass)) if(isSubtype(type2, superclass)) return superclass;
+
+        return "java.lang.Object";
+    }
+
+    private boolean exists(String type){
+        return compiler.classes.containsKey(type) || compiler.symbols.get(type) != null;
+    }
+
+    private boolean isInterface(String type){
+        Compilable c = compiler.classes.get(type);
+        if(c != null) return c instanceof KtjInterface && !(c instanceof KtjClass);
+
+        ClassSymbol symbol = compiler.symbols.get(type);
+        return symbol != null && symbol.isInterface;
+    }
+
+    /** @return the superclass or null for interfaces, java.lang.Object and unknown classes */
+    private String getSuperclass(String type){
+        Compilable c = compiler.classes.get(type);
+        if(c instanceof KtjTypeClass) return "java.lang.Enum";
+        if(c instanceof KtjClass) return ((KtjClass) c).superclass;
+        if(c instanceof KtjDataClass) return "java.lang.Object";
+        if(c != null) return null;
+
+        ClassSymbol symbol = compiler.symbols.get(type);
+        return symbol == null || symbol.isInterface ? null : symbol.superclass;
+    }
+
+    private Set<String> compute(String type){
+        HashSet<String> result = new HashSet<>();
+
+        if(compiler.classes.containsKey(type)){
+            Compilable c = compiler.classes.get(type);
+
+            if(c instanceof KtjTypeClass) add(result, "java.lang.Enum");
+            else if(c instanceof KtjClass){
+                KtjClass clazz = (KtjClass) c;
+
+                if(clazz.superclass != null) add(result, clazz.superclass);
+                for(String i:clazz.interfaces) add(result, i);
+            }
+        }else{
+            ClassSymbol symbol = compiler.symbols.get(type);
+            if(symbol == null) return Collections.emptySet();
+
+            if(symbol.superclass != null) add(result, symbol.superclass);
+            for(String i:symbol.interfaces) add(result, i);
+        }
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    private void add(HashSet<String> result, String type){
+        if(result.add(type)) result.addAll(getSupertypes(type));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+/**
+ * An interned type like the compiler writes it as a string, e.g. "int", "[java.lang.String" or "java.util.ArrayList|java.lang.String" for a generic instantiation.
+ * Every string is parsed once per {@link TypeTable}, so two references of the same type in one compilation are always the same object.
+ */
+final class TypeRef{
+
+    /** the type without generic arguments */
+    final String name;
+    /** the types the generic type is instantiated with, empty if there are none */
+    final TypeRef[] arguments;
+    /** the jvm descriptor of {@link #name} */
+    final String descriptor;
+    private final String type;
+
+    TypeRef(String type, TypeTable table){
+        this.type = type;
+
+        int generic = type.indexOf('|');
+        if(generic == -1){
+            name = type;
+            arguments = new TypeRef[0];
+        }else{
+            name = type.substring(0, generic);
+            String[] args = type.substring(generic + 1).split("%");
+            arguments = new TypeRef[args.length];
+            for(int i = 0;i < args.length;i++) arguments[i] = table.type(args[i]);
+        }
+
+        descriptor = descriptor(name);
+    }
+
+    boolean isArray(){
+        return name.startsWith("[");
+    }
+
+    boolean isPrimitive(){
+        return CompilerUtil.PRIMITIVES.contains(name);
+    }
+
+    /** @return the jvm descriptor of a type like the compiler writes it as a string, the generic arguments are ignored */
+    static String descriptor(String type){
+        switch (type){
+            case "int": return "I";
+            case "short": return "S";
+            case "long": return "J";
+            case "double": return "D";
+            case "float": return "F";
+            case "boolean": return "Z";
+            case "char": return "C";
+            case "byte": return "B";
+            case "void": return "V";
+            default:
+                if(type.startsWith("[")) return "["+descriptor(type.substring(1));
+
+                int generic = type.indexOf('|');
+                return "L"+(generic == -1 ? type : type.substring(0, generic)).replace(".", "/")+";";
+        }
+    }
+
+    /** @return the type like the compiler writes it as a string */
+    @Override
+    public String toString(){
+        return type;
+    }
+}
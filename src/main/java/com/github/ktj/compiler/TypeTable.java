@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the types and method signatures of one compilation, so that the same type or signature is always the same object.
+ */
+final class TypeTable{
+
+    private final ConcurrentHashMap<String, TypeRef> types = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, MethodSig> signatures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> parameterDescriptors = new ConcurrentHashMap<>();
+
+    TypeRef type(String type){
+        TypeRef ref = types.get(type);
+        if(ref != null) return ref;
+
+        //the arguments are interned while constructing, so this can't happen inside computeIfAbsent
+        ref = new TypeRef(type, this);
+        TypeRef previous = types.putIfAbsent(type, ref);
+        return previous == null ? ref : previous;
+    }
+
+    /** @param signature the method name with its parameter types, like "name%int%java.lang.String" */
+    MethodSig signature(String signature){
+        MethodSig sig = signatures.get(signature);
+        if(sig != null) return sig;
+
+        int start = signature.indexOf('%');
+        String name = start == -1 ? signature : signature.substring(0, start);
+        return intern(new MethodSig(signature, name, parse(start == -1 ? "" : signature.substring(start + 1))));
+    }
+
+    MethodSig signature(String name, TypeRef...parameters){
+        StringBuilder signature = new StringBuilder(name);
+        for(TypeRef parameter:parameters) signature.append("%").append(parameter);
+
+        MethodSig sig = signatures.get(signature.toString());
+        return sig != null ? sig : intern(new MethodSig(signature.toString(), name, parameters));
+    }
+
+    private MethodSig intern(MethodSig sig){
+        MethodSig previous = signatures.putIfAbsent(sig.toString(), sig);
+        return previous == null ? sig : previous;
+    }
+
+    /** @return the jvm descriptor of a method with the parameters separated by '%' */
+    String descriptor(String parameterList, String returnType){
+        String descriptor = parameterDescriptors.get(parameterList);
+
+        if(descriptor == null){
+            StringBuilder sb = new StringBuilder("(");
+            for(TypeRef parameter:parse(parameterList)) sb.append(parameter.descriptor);
+            descriptor = sb.append(")").toString();
+
+            parameterDescriptors.putIfAbsent(parameterList, descriptor);
+        }
+
+        return descriptor+TypeRef.descriptor(returnType);
+    }
+
+    private TypeRef[] parse(String parameterList){
+        if(parameterList.isEmpty()) return new TypeRef[0];
+
+        String[] types = parameterList.split("%");
+        TypeRef[] parameters = new TypeRef[types.length];
+        for(int i = 0;i < types.length;i++) parameters[i] = type(types[i]);
+        return parameters;
+    }
+}
@@ -17,6 +17,7 @@
 package com.github.ktj.lang;
 
 import com.github.ktj.bytecode.AccessFlag;
+import com.github.ktj.compiler.Compiler;
 import com.github.ktj.compiler.CompilerUtil;
 
 import java.util.ArrayList;
@@ -49,14 +50,17 @@ public abstract class Compilable {
         this.line = line;
     }
 
-    public abstract void validateTypes();
+    public abstract void validateTypes(Compiler compiler);
 
-    public void validateUses(String type){
+    /** drops the source of the bodies once they are compiled */
+    public void releaseCode(){}
+
+    public void validateUses(Compiler compiler, String type){
         for(String clazz: uses.values()){
-            if(!CompilerUtil.classExist(clazz)) throw new RuntimeException("Unable to find "+clazz);
-            if(!CompilerUtil.canAccess(type, clazz)) throw new RuntimeException("Class "+clazz+" is outside of scope");
+            if(!CompilerUtil.classExist(compiler, clazz)) throw new RuntimeException("Unable to find "+clazz);
+            if(!CompilerUtil.canAccess(compiler, type, clazz)) throw new RuntimeException("Class "+clazz+" is outside of scope");
         }
-        for(String clazz: statics) if(!CompilerUtil.isClass(uses.get(clazz))) throw new RuntimeException("Can't static use "+clazz);
+        for(String clazz: statics) if(!CompilerUtil.isClass(compiler, uses.get(clazz))) throw new RuntimeException("Can't static use "+clazz);
     }
 
     public String validateType(String type, boolean errorAt) throws RuntimeException{
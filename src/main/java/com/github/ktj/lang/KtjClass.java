@@ -19,11 +19,12 @@ package com.github.ktj.lang;
 import com.github.ktj.bytecode.AccessFlag;
 import com.github.ktj.compiler.Compiler;
 import com.github.ktj.compiler.CompilerUtil;
+import com.github.ktj.compiler.TokenSlice;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 public class KtjClass extends KtjInterface{
 
@@ -33,7 +34,7 @@ public class KtjClass extends KtjInterface{
 
     public KtjClass(Modifier modifier, ArrayList<GenericType> genericTypes, HashMap<String, String> uses, ArrayList<String> statics, String file, int line){
         super(modifier, genericTypes, uses, statics, file, line);
-        fields = new HashMap<>();
+        fields = new LinkedHashMap<>();
     }
 
     public boolean addField(String name, KtjField field){
@@ -47,59 +48,25 @@ public class KtjClass extends KtjInterface{
         return fields.isEmpty() && methods.isEmpty();
     }
 
-    public String initValues(){
-        StringBuilder sb = new StringBuilder();
-
-        for(String field: fields.keySet()) if(fields.get(field).initValue != null && !fields.get(field).modifier.statik) sb.append(field).append(" = ").append(fields.get(field).initValue).append(";");
-
-        return sb.toString();
-    }
-
-    public String clinitValues(){
-        StringBuilder sb = new StringBuilder();
-
-        for(String field: fields.keySet()) if(fields.get(field).initValue != null && fields.get(field).modifier.statik) sb.append(field).append(" = ").append(fields.get(field).initValue).append(";");
-
-        return sb.toString();
-    }
-
     public void validateInit(String className){
-        boolean initExist = false;
-
-        for(String method: methods.keySet()) {
-            if(method.startsWith("<init>")) {
-                initExist = true;
-                break;
-            }
-        }
-
-        if(!initExist){
-            methods.put("<init>", new KtjConstructor(new Modifier(AccessFlag.ACC_PUBLIC), genericTypes, className, "","", new KtjMethod.Parameter[0], uses, statics, file, Integer.MIN_VALUE));
+        if(!hasMethod("<init>")){
+            addMethod("<init>", new KtjConstructor(new Modifier(AccessFlag.ACC_PUBLIC), genericTypes, className, null, TokenSlice.EMPTY, new KtjMethod.Parameter[0], uses, statics, file, Integer.MIN_VALUE));
         }
     }
 
     public void validateClinit(String className){
-        boolean clinitExist = false;
-
-        for(String method: methods.keySet()) {
-            if(method.startsWith("<clinit>")) {
-                clinitExist = true;
-                break;
-            }
-        }
-
-        if(!clinitExist){
+        if(!hasMethod("<clinit>")){
             Modifier mod = new Modifier(AccessFlag.ACC_PACKAGE_PRIVATE);
             mod.statik = true;
-            methods.put("<clinit>", new KtjMethod(mod, genericTypes, className, "", new KtjMethod.Parameter[0], uses, statics, file, Integer.MIN_VALUE));
+            addMethod("<clinit>", new KtjMethod(mod, genericTypes, className, TokenSlice.EMPTY, new KtjMethod.Parameter[0], uses, statics, file, Integer.MIN_VALUE));
         }
     }
 
-    public void validateInterfaces(){
+    public void validateInterfaces(Compiler compiler){
         for(String interfaceName:interfaces){
-            if(!CompilerUtil.isInterface(interfaceName)) throw new RuntimeException("Expected "+interfaceName+" to be a interface");
-            if(Compiler.Instance().classes.containsKey(interfaceName)) validateKtjInterface((KtjInterface) Compiler.Instance().classes.get(interfaceName));
-            else validateJavaInterface(interfaceName);
+            if(!CompilerUtil.isInterface(compiler, interfaceName)) throw new RuntimeException("Expected "+interfaceName+" to be a interface");
+            if(compiler.classes.containsKey(interfaceName)) validateKtjInterface((KtjInterface) compiler.classes.get(interfaceName));
+            else validateJavaInterface(compiler, interfaceName);
         }
     }
 
@@ -117,37 +84,34 @@ public class KtjClass extends KtjInterface{
         }
     }
 
-    private void validateJavaInterface(String interfaceName){
-        try{
-            Class<?> clazz = Class.forName(interfaceName);
-
-            for(Method method:clazz.getDeclaredMethods()){
-                StringBuilder desc = new StringBuilder(method.getName());
+    private void validateJavaInterface(Compiler compiler, String interfaceName){
+        LinkedHashMap<String, String> abstractMethods = CompilerUtil.getAbstractMethods(compiler, interfaceName);
+        if(abstractMethods == null) return;
 
-                for(Class<?> p:method.getParameterTypes()) desc.append("%").append(p.toString().split(" ")[1]);
+        for(String desc:abstractMethods.keySet()){
+            String returnType = abstractMethods.get(desc);
 
-                if(!methods.containsKey(desc.toString())) throw new RuntimeException("No implementation for "+desc+" found");
-                else if(!methods.get(desc.toString()).returnType.equals(method.getReturnType().getName())) throw new RuntimeException("Expected "+method.getName()+" to have return type "+method.getReturnType().getName()+" got "+methods.get(desc.toString()).returnType);
-            }
-        }catch(ClassNotFoundException ignored){}
+            if(!methods.containsKey(desc)) throw new RuntimeException("No implementation for "+desc+" found");
+            else if(!methods.get(desc).returnType.equals(returnType)) throw new RuntimeException("Expected "+desc.split("%")[0]+" to have return type "+returnType+" got "+methods.get(desc).returnType);
+        }
     }
 
     @Override
-    public void validateTypes() {
-        super.validateTypes();
+    public void validateTypes(Compiler compiler) {
+        super.validateTypes(compiler);
 
         for(KtjField field:fields.values()){
-            field.validateTypes();
-            if(field.initValue == null) field.initValue = CompilerUtil.getDefaultValue(field.type);
+            field.validateTypes(compiler);
+            if(field.initValue == null) field.initValue = TokenSlice.of(CompilerUtil.getDefaultValue(field.type), field.file, field.line);
         }
 
         Arrays.stream(interfaces).forEach(type -> validateType(type, true));
 
         if(superclass != null){
             superclass = super.validateType(superclass, true);
-            if(CompilerUtil.isFinal(superclass)) throw new RuntimeException("Class "+superclass+" is final");
+            if(CompilerUtil.isFinal(compiler, superclass)) throw new RuntimeException("Class "+superclass+" is final");
 
-            if(CompilerUtil.isInterface(superclass)){
+            if(CompilerUtil.isInterface(compiler, superclass)){
                 String[] help = new String[interfaces.length + 1];
                 help[0] = superclass;
                 System.arraycopy(interfaces, 0, help, 1, interfaces.length);
@@ -163,4 +127,10 @@ public class KtjClass extends KtjInterface{
     public int getAccessFlag(){
         return super.getAccessFlag() - AccessFlag.INTERFACE - AccessFlag.ABSTRACT;
     }
+
+    @Override
+    public void releaseCode(){
+        super.releaseCode();
+        for(KtjField field:fields.values()) field.initValue = null;
+    }
 }
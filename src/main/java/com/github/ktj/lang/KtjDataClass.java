@@ -17,6 +17,7 @@
 package com.github.ktj.lang;
 
 import com.github.ktj.bytecode.AccessFlag;
+import com.github.ktj.compiler.Compiler;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -32,8 +33,8 @@ public class KtjDataClass extends Compilable{
     }
 
     @Override
-    public void validateTypes() {
-        for(KtjField field:fields.values()) field.validateTypes();
+    public void validateTypes(Compiler compiler) {
+        for(KtjField field:fields.values()) field.validateTypes(compiler);
     }
 
     public boolean addField(boolean constant, String type, String name, int line){
@@ -16,14 +16,18 @@
 
 package com.github.ktj.lang;
 
+import com.github.ktj.compiler.Compiler;
+import com.github.ktj.compiler.TokenSlice;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 
 public class KtjField extends Compilable{
 
-    public String type, initValue;
+    public String type;
+    public TokenSlice initValue;
 
-    public KtjField(Modifier modifier, String type, ArrayList<GenericType> genericTypes, String initValue, HashMap<String, String> uses, ArrayList<String> statics, String file, int line){
+    public KtjField(Modifier modifier, String type, ArrayList<GenericType> genericTypes, TokenSlice initValue, HashMap<String, String> uses, ArrayList<String> statics, String file, int line){
         super(modifier, genericTypes, uses, statics, file, line);
         this.type = type;
         this.initValue = initValue;
@@ -37,7 +41,7 @@ public class KtjField extends Compilable{
     }
 
     @Override
-    public void validateTypes() {
+    public void validateTypes(Compiler compiler) {
         type = validateType(type, true);
     }
 }
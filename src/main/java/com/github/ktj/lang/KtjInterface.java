@@ -17,35 +17,58 @@
 package com.github.ktj.lang;
 
 import com.github.ktj.bytecode.AccessFlag;
+import com.github.ktj.compiler.Compiler;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 public class KtjInterface extends Compilable{
 
     public HashMap<String, KtjMethod> methods;
+    /** the keys of {@link #methods} by method name and parameter count, in the iteration order of methods */
+    private final HashMap<String, HashMap<Integer, ArrayList<String>>> overloads = new HashMap<>();
 
     public KtjInterface(Modifier modifier, ArrayList<GenericType> genericTypes, HashMap<String, String> uses, ArrayList<String> statics, String file, int line){
         super(modifier, genericTypes, uses, statics, file, line);
-        methods = new HashMap<>();
+        methods = new LinkedHashMap<>();
     }
 
     public boolean addMethod(String desc, KtjMethod method){
         if(methods.containsKey(desc)) return true;
 
         methods.put(desc, method);
+        index(desc, method);
         return false;
     }
 
+    /** @return the keys of the methods with the given name and parameter count */
+    public List<String> getMethods(String name, int parameters){
+        HashMap<Integer, ArrayList<String>> methods = overloads.get(name);
+        if(methods == null || !methods.containsKey(parameters)) return Collections.emptyList();
+        return methods.get(parameters);
+    }
+
+    public boolean hasMethod(String name){
+        return overloads.containsKey(name);
+    }
+
+    private void index(String desc, KtjMethod method){
+        String name = desc.contains("%") ? desc.substring(0, desc.indexOf('%')) : desc;
+        overloads.computeIfAbsent(name, k -> new HashMap<>()).computeIfAbsent(method.parameter.length, k -> new ArrayList<>()).add(desc);
+    }
+
     @Override
-    public void validateTypes(){
+    public void validateTypes(Compiler compiler){
         if(genericTypes != null) for(GenericType genericType:genericTypes) genericType.type = validateType(genericType.type, true);
 
-        HashMap<String, KtjMethod> help = new HashMap<>();
+        HashMap<String, KtjMethod> help = new LinkedHashMap<>();
 
         for(String methodName:methods.keySet()){
             KtjMethod method = methods.get(methodName);
-            method.validateTypes();
+            method.validateTypes(compiler);
 
             String[] args = methodName.split("%");
             StringBuilder desc = new StringBuilder(args[0]);
@@ -56,9 +79,17 @@ public class KtjInterface extends Compilable{
         }
 
         methods = help;
+
+        overloads.clear();
+        methods.forEach(this::index);
     }
 
     public int getAccessFlag(){
         return super.getAccessFlag() + AccessFlag.INTERFACE + AccessFlag.ABSTRACT;
     }
+
+    @Override
+    public void releaseCode(){
+        for(KtjMethod method:methods.values()) method.releaseCode();
+    }
 }
@@ -16,6 +16,9 @@
 
 package com.github.ktj.lang;
 
+import com.github.ktj.compiler.Compiler;
+import com.github.ktj.compiler.TokenSlice;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -34,9 +37,9 @@ public class KtjMethod extends Compilable{
 
     public Parameter[] parameter;
     public String returnType;
-    public final String code;
+    public TokenSlice code;
 
-    public KtjMethod(Modifier modifier, ArrayList<GenericType> generics, String returnType, String code, Parameter[] parameter, HashMap<String, String> uses, ArrayList<String> statics, String file, int line){
+    public KtjMethod(Modifier modifier, ArrayList<GenericType> generics, String returnType, TokenSlice code, Parameter[] parameter, HashMap<String, String> uses, ArrayList<String> statics, String file, int line){
         super(modifier, generics, uses, statics, file, line);
         this.parameter = parameter;
         this.returnType = returnType;
@@ -44,7 +47,7 @@ public class KtjMethod extends Compilable{
     }
 
     @Override
-    public void validateTypes() {
+    public void validateTypes(Compiler compiler) {
         if(!returnType.equals("void")) returnType = validateType(returnType, true);
 
         ArrayList<Parameter> help = new ArrayList<>();
@@ -56,7 +59,8 @@ public class KtjMethod extends Compilable{
         return modifier.abstrakt || modifier.natife;
     }
 
-    public int getLocals(){
-        return parameter.length + 1;
+    @Override
+    public void releaseCode(){
+        code = null;
     }
 }
@@ -17,6 +17,7 @@
 package com.github.ktj.lang;
 
 import com.github.ktj.bytecode.AccessFlag;
+import com.github.ktj.compiler.TokenSlice;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -28,17 +29,8 @@ public class KtjObject extends KtjClass{
 
     @Override
     public void validateInit(String className) {
-        boolean initExist = false;
-
-        for(String method: methods.keySet()) {
-            if(method.startsWith("<init>")) {
-                initExist = true;
-                break;
-            }
-        }
-
-        if(!initExist){
-            methods.put("<init>", new KtjConstructor(new Modifier(AccessFlag.ACC_PRIVATE), null,className, "", "", new KtjMethod.Parameter[0], uses, statics, file, Integer.MIN_VALUE));
+        if(!hasMethod("<init>")){
+            addMethod("<init>", new KtjConstructor(new Modifier(AccessFlag.ACC_PRIVATE), null,className, null, TokenSlice.EMPTY, new KtjMethod.Parameter[0], uses, statics, file, Integer.MIN_VALUE));
         }
     }
 }
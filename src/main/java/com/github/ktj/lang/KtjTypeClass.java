@@ -17,6 +17,7 @@
 package com.github.ktj.lang;
 
 import com.github.ktj.bytecode.AccessFlag;
+import com.github.ktj.compiler.Compiler;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -49,7 +50,7 @@ public final class KtjTypeClass extends Compilable{
     }
 
     @Override
-    public void validateTypes() {
+    public void validateTypes(Compiler compiler) {
 
     }
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompilerTest {
+
+    private static final String HELLO_WORLD = "src/test/kataja/HelloWorld.ktj";
+
+    @Test
+    public void incrementalBuildCompilesOnlyChangedClasses() throws IOException{
+        File src = Files.createTempDirectory("ktj").toFile();
+        File out = Files.createTempDirectory("ktj").toFile();
+        write(new File(src, "A.ktj"), "class A{\n\n    void test(){\n        int i = 1\n    }\n}\n");
+        write(new File(src, "B.ktj"), "class B{\n\n    void test(){\n        int i = 1\n    }\n}\n");
+        compileIncremental(src, out);
+
+        File a = new File(out, "A.class"), b = new File(out, "B.class");
+        byte[] before = Files.readAllBytes(a.toPath());
+        //B is only written again if it is compiled again
+        Files.write(b.toPath(), new byte[]{1});
+
+        write(new File(src, "A.ktj"), "class A{\n\n    void test(){\n        int i = 2\n    }\n}\n");
+        compileIncremental(src, out);
+
+        assertFalse(Arrays.equals(before, Files.readAllBytes(a.toPath())));
+        assertTrue(Arrays.equals(new byte[]{1}, Files.readAllBytes(b.toPath())));
+    }
+
+    @Test
+    public void incrementalIsIgnoredForJars() throws IOException{
+        File jar = new File(Files.createTempDirectory("ktj").toFile(), "HelloWorld.jar");
+
+        for(int i = 0;i < 2;i++){
+            Compiler compiler = new Compiler();
+            compiler.setJar(jar.getPath(), true);
+            compiler.setIncremental(true);
+            compiler.compile(true, HELLO_WORLD);
+
+            try(JarFile file = new JarFile(jar)){
+                assertNotNull(file.getEntry("HelloWorld.class"));
+                assertEquals("HelloWorld", file.getManifest().getMainAttributes().getValue("Main-Class"));
+            }
+        }
+    }
+
+    @Test
+    public void incrementalIsIgnoredInMemory() throws IOException{
+        File out = Files.createTempDirectory("ktj").toFile();
+
+        Compiler compiler = new Compiler();
+        compiler.setOutFolder(out.getPath());
+        compiler.setInMemory(true);
+        compiler.setIncremental(true);
+        compiler.compile(true, HELLO_WORLD);
+
+        assertEquals(0, out.list().length);
+    }
+
+    @Test
+    public void diagnosticsOfSourcesInMemory(){
+        assertDiagnostic("p/B.ktj", 4, "Field zz is not defined for class p.B", "class B{\n\n    void test(){\n        int i = zz\n    }\n}\n");
+        assertDiagnostic("p/E.ktj", 7, "Field zz is not defined for class p.E.F", "class E{\n}\n\nclass F{\n\n    void test(){\n        int i = zz\n    }\n}\n");
+        assertDiagnostic("p/G.ktj", 2, "Expected one of IDENTIFIER got { near ( { }", "class G{\n    void test({\n}\n");
+    }
+
+    @Test
+    public void diagnosticsOfLexingErrors(){
+        assertDiagnostic("p/C.ktj", 3, "Expected \"", "main{\n\n    String s = \"abc\n}\n");
+    }
+
+    private static void assertDiagnostic(String file, int line, String message, String source){
+        CompileResult result = new Compiler().build(Collections.singletonMap(file, source));
+
+        assertFalse(result.success());
+        assertEquals(1, result.diagnostics.size());
+        assertEquals(file, result.diagnostics.get(0).file);
+        assertEquals(line, result.diagnostics.get(0).line);
+        assertEquals(message, result.diagnostics.get(0).message);
+    }
+
+    private static void compileIncremental(File src, File out){
+        Compiler compiler = new Compiler();
+        compiler.setOutFolder(out.getPath());
+        compiler.setIncremental(true);
+        compiler.compile(true, src.getPath());
+    }
+
+    private static void write(File file, String source) throws IOException{
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * measures the throughput of {@link Lexer#lex(File, String)} and {@link Lexer#lex(String, String)}
+ * <p>
+ * the input are the kataja files in the given folder, src/test/kataja by default, which are repeated until the source has at least 500k chars.
+ * run it with the compiled main and test classes on the classpath, for example
+ * {@code java -cp target/classes:target/test-classes com.github.ktj.compiler.LexerBenchmark [folder] [rounds]}
+ */
+final class LexerBenchmark {
+
+    private static final int SIZE = 500_000;
+    private static final int WARMUP = 10;
+
+    public static void main(String[] args) throws IOException{
+        Path folder = Paths.get(args.length > 0 ? args[0] : "src/test/kataja");
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        StringBuilder samples = new StringBuilder();
+        try(Stream<Path> walk = Files.walk(folder)){
+            for(Path file:(Iterable<Path>) walk.filter(path -> path.toString().endsWith(".ktj")).sorted()::iterator) samples.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).append('\n');
+        }
+        if(samples.length() == 0) throw new IllegalArgumentException("No kataja files in " + folder);
+
+        StringBuilder source = new StringBuilder();
+        while(source.length() < SIZE) source.append(samples);
+        String code = source.toString();
+
+        File file = File.createTempFile("LexerBenchmark", ".ktj");
+        file.deleteOnExit();
+        Files.write(file.toPath(), code.getBytes(StandardCharsets.UTF_8));
+
+        System.out.println("lexing " + code.length() + " chars, " + rounds + " rounds after " + WARMUP + " rounds of warm-up");
+        System.out.printf("lex(File):   %.1f Mchars/s%n", measure(code.length(), rounds, () -> Lexer.lex(file, "LexerBenchmark")));
+        System.out.printf("lex(String): %.1f Mchars/s%n", measure(code.length(), rounds, () -> Lexer.lex("LexerBenchmark", code)));
+    }
+
+    private static double measure(int chars, int rounds, Round round) throws IOException{
+        for(int i = 0;i < WARMUP;i++) round.run();
+
+        long time = System.nanoTime();
+        for(int i = 0;i < rounds;i++) round.run();
+        time = System.nanoTime() - time;
+
+        return (double) chars * rounds / time * 1000;
+    }
+
+    private interface Round{
+        void run() throws IOException;
+    }
+}
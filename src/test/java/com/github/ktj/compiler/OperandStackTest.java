@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OperandStackTest {
+
+    @Test
+    public void shadowedVariableGetsItsSlotBack(){
+        OperandStack os = new OperandStack(false);
+
+        assertEquals(0, os.get("this"));
+        assertEquals(1, os.push("x", 1));
+
+        os.newScope();
+        assertEquals(2, os.push("y", 2));
+        assertEquals(4, os.push("x", 1));
+        assertEquals(4, os.get("x"));
+        os.clearScope();
+
+        assertEquals(1, os.get("x"));
+        assertEquals(-1, os.get("y"));
+        assertEquals(2, os.push("z", 1));
+        assertEquals(5, os.getMaxLocals());
+    }
+
+    @Test
+    public void scopesReuseTheirSlots(){
+        OperandStack os = new OperandStack(true);
+
+        os.newScope();
+        assertEquals(0, os.push("a", 2));
+        os.clearScope();
+
+        os.newScope();
+        assertEquals(0, os.push("b", 1));
+        assertEquals(1, os.push("c", 1));
+        os.clearScope();
+
+        assertEquals(-1, os.get("a"));
+        assertEquals(2, os.getMaxLocals());
+    }
+}
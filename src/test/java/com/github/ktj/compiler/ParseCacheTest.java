@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2024 Xaver Weste
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License 3.0 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.ktj.compiler;
+
+import com.github.ktj.lang.Compilable;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ParseCacheTest {
+
+    private static final String SAMPLES = "src/test/kataja";
+
+    @Test
+    public void entriesAreReadBackAsTheParsedDeclarations() throws IOException{
+        for(File file:samples()){
+            File folder = Files.createTempDirectory("ktjc").toFile();
+            HashMap<String, Compilable> parsed = new Parser().parseFile(file, SAMPLES);
+
+            assertDeclarations(parsed, new ParseCache(folder).parseFile(file, SAMPLES), file.getName());
+            assertEquals(1, folder.listFiles().length);
+
+            HashMap<String, Compilable> read = ParseCache.read(folder.listFiles()[0], source(file));
+            assertNotNull(read);
+            assertDeclarations(parsed, read, file.getName());
+            assertDeclarations(parsed, new ParseCache(folder).parseFile(file, SAMPLES), file.getName());
+        }
+    }
+
+    @Test
+    public void corruptedEntriesAreParsedAgain() throws IOException{
+        for(File file:samples()){
+            File folder = Files.createTempDirectory("ktjc").toFile();
+            new ParseCache(folder).parseFile(file, SAMPLES);
+
+            File entry = folder.listFiles()[0];
+            byte[] bytes = Files.readAllBytes(entry.toPath());
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(entry.toPath(), bytes);
+
+            assertNull(ParseCache.read(entry, source(file)));
+            assertDeclarations(new Parser().parseFile(file, SAMPLES), new ParseCache(folder).parseFile(file, SAMPLES), file.getName());
+        }
+    }
+
+    private static File[] samples(){
+        File[] samples = new File(SAMPLES).listFiles((dir, name) -> name.endsWith(".ktj"));
+        assertNotNull(samples);
+        return samples;
+    }
+
+    private static char[] source(File file) throws IOException{
+        return Charset.defaultCharset().decode(ByteBuffer.wrap(Files.readAllBytes(file.toPath()))).array();
+    }
+
+    /** compares the declarations field by field, method bodies by their tokens */
+    private static void assertDeclarations(Object expected, Object actual, String path){
+        if(expected == null || actual == null){
+            assertEquals(path, expected, actual);
+            return;
+        }
+        assertEquals(path, expected.getClass(), actual.getClass());
+
+        if(expected instanceof TokenSlice){
+            assertEquals(path, expected.toString(), actual.toString());
+        }else if(expected instanceof Map){
+            assertEquals(path, ((Map<?, ?>) expected).keySet(), ((Map<?, ?>) actual).keySet());
+            for(Object key:((Map<?, ?>) expected).keySet()) assertDeclarations(((Map<?, ?>) expected).get(key), ((Map<?, ?>) actual).get(key), path+"."+key);
+        }else if(expected instanceof List){
+            assertEquals(path, ((List<?>) expected).size(), ((List<?>) actual).size());
+            for(int i = 0;i < ((List<?>) expected).size();i++) assertDeclarations(((List<?>) expected).get(i), ((List<?>) actual).get(i), path+"["+i+"]");
+        }else if(expected.getClass().isArray()){
+            assertEquals(path, Array.getLength(expected), Array.getLength(actual));
+            for(int i = 0;i < Array.getLength(expected);i++) assertDeclarations(Array.get(expected, i), Array.get(actual, i), path+"["+i+"]");
+        }else if(expected.getClass().getName().startsWith("com.github.ktj.") && !expected.getClass().isEnum()){
+            for(Class<?> type = expected.getClass();type != Object.class;type = type.getSuperclass()){
+                for(Field field:type.getDeclaredFields()){
+                    if(Modifier.isStatic(field.getModifiers())) continue;
+
+                    field.setAccessible(true);
+                    try{
+                        assertDeclarations(field.get(expected), field.get(actual), path+"."+field.getName());
+                    }catch(IllegalAccessException e){
+                        throw new AssertionError(e);
+                    }
+                }
+            }
+        }else assertEquals(path, expected, actual);
+    }
+}